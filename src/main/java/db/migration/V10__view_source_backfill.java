@@ -0,0 +1,81 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.data.util.Pair;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.syndesis.dv.utils.PathUtils;
+
+/**
+ * Populates the view_source table from the source paths of the existing views.
+ * <br>
+ * The state json is read directly so that the migration does not depend upon
+ * the current form of the entity classes.
+ */
+public class V10__view_source_backfill extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        ObjectMapper mapper = new ObjectMapper();
+        try (Statement select = connection.createStatement();
+                ResultSet rs = select.executeQuery("SELECT id, state FROM view_definition WHERE state IS NOT NULL"); //$NON-NLS-1$
+                PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO view_source (view_id, source_name, table_name) VALUES (?, ?, ?)")) { //$NON-NLS-1$
+            while (rs.next()) {
+                JsonNode sourcePaths = mapper.readTree(rs.getString(2)).path("sourcePaths"); //$NON-NLS-1$
+                Set<List<String>> sourceTables = new HashSet<>();
+                for (JsonNode sourcePath : sourcePaths) {
+                    List<Pair<String, String>> options = null;
+                    try {
+                        options = PathUtils.getOptions(sourcePath.asText());
+                    } catch (NoSuchElementException e) {
+                        //not an option path
+                        continue;
+                    }
+                    if (options.size() == 2) {
+                        sourceTables.add(Arrays.asList(options.get(0).getSecond(), options.get(1).getSecond()));
+                    }
+                }
+                for (List<String> sourceTable : sourceTables) {
+                    insert.setString(1, rs.getString(1));
+                    insert.setString(2, sourceTable.get(0));
+                    insert.setString(3, sourceTable.get(1));
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+}
@@ -18,11 +18,15 @@
 
 package io.syndesis.dv;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import io.syndesis.dv.model.DataVirtualization;
+import io.syndesis.dv.model.EntityVersion;
 import io.syndesis.dv.model.SourceSchema;
+import io.syndesis.dv.model.SourceSchemaState;
 import io.syndesis.dv.model.ViewDefinition;
 
 public interface RepositoryManager {
@@ -58,12 +62,32 @@ public interface RepositoryManager {
 
     SourceSchema findSchemaBySourceId(String id);
 
+    /**
+     * Get the id and version of the schema without loading the ddl
+     * @param id the source id
+     * @return the version or null if the schema does not exist
+     */
+    EntityVersion findSchemaVersionBySourceId(String id);
+
     boolean deleteSchemaBySourceId(String id);
 
     SourceSchema createSchema(String id, String name, String contents);
 
     List<String> findAllSchemaNames();
 
+    /**
+     * Find the state of the schema without reading the ddl
+     * @param id the source id
+     * @return the state or null if the schema does not exist
+     */
+    SourceSchemaState findSchemaStateBySourceId(String id);
+
+    /**
+     * Find the states of all schemas without reading the ddl
+     * @return
+     */
+    List<SourceSchemaState> findAllSchemaStates();
+
 
     DataVirtualization createDataVirtualization(String virtualizationName);
 
@@ -90,10 +114,32 @@ public interface RepositoryManager {
 
     List<String> findViewDefinitionsNames(String dvName);
 
+    /**
+     * Count the view definitions of all virtualizations with a single query
+     * @return the counts keyed by virtualization name - virtualizations without views are not present
+     */
+    Map<String, Long> findViewDefinitionCounts();
+
     List<? extends ViewDefinition> findViewDefinitions(String dvName);
 
     List<ViewDefinition> saveAllViewDefinitions(
             Iterable<ViewDefinition> entities);
 
+    /**
+     * @return the names of the tables of the given source referenced by any view
+     */
+    List<String> findSourceTableNames(String sourceName);
+
+    /**
+     * Find the virtualizations with views that reference the given source
+     * @param tableNames the referenced table names, or null for any table of the source
+     */
+    List<String> findDataVirtualizationNamesBySource(String sourceName, Collection<String> tableNames);
+
+    /**
+     * @return the virtualizations with user defined views whose source tables are not known
+     */
+    List<String> findDataVirtualizationNamesWithoutSourceTables();
+
     boolean isNameInUse(String name);
 }
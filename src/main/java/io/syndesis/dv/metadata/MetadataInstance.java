@@ -18,9 +18,11 @@
 package io.syndesis.dv.metadata;
 
 import java.util.Collection;
+import java.util.List;
 
 import io.syndesis.dv.datasources.DefaultSyndesisDataSource;
 import io.syndesis.dv.metadata.query.QSResult;
+import io.syndesis.dv.metadata.query.QSResultHandler;
 import org.teiid.adminapi.AdminException;
 import org.teiid.adminapi.impl.VDBMetaData;
 import org.teiid.deployers.VDBLifeCycleListener;
@@ -151,6 +153,19 @@ public interface MetadataInstance extends StringConstants {
      */
     QSResult query(String vdbName, String query, int offset, int limit) throws KException;
 
+    /**
+     * Query the vdb with given name, passing the columns and rows to the handler
+     * as they are read rather than collecting the full result
+     *
+     * @param vdbName the name of the vdb to query
+     * @param query   the SQL query
+     * @param offset  an offset of the results to return
+     * @param limit   a limit on the number of results to return
+     * @param handler receives the columns and rows
+     * @throws KException
+     */
+    void query(String vdbName, String query, int offset, int limit, QSResultHandler handler) throws KException;
+
     /**
      * @return the collection of deployed vdbs
      * @throws KException
@@ -193,6 +208,14 @@ public interface MetadataInstance extends StringConstants {
      */
     TeiidDataSource getDataSource(String sourceName) throws KException;
 
+    /**
+     * Read the names of the source tables, without their columns or other metadata
+     * @param sourceName
+     * @return the table names qualified by schema name, or null if the source does not support listing tables
+     * @throws KException
+     */
+    List<String> getSourceTableNames(String sourceName) throws KException;
+
     /**
      * Removes the data source from the metadata instance (if exists)
      *
@@ -206,6 +229,17 @@ public interface MetadataInstance extends StringConstants {
      */
     void deploy(VDBMetaData vdb) throws KException;
 
+    /**
+     * Update the view definitions of an already deployed vdb in place, rather than
+     * redeploying it.  This is only possible if the vdb differs from the deployed vdb
+     * by view definitions alone - the imports, models, view names and view columns
+     * must all be the same.
+     *
+     * @param vdb
+     * @return true if the deployed vdb was updated, false if a full deploy is needed
+     */
+    boolean updateViews(VDBMetaData vdb) throws KException;
+
     Collection<String> getDataSourceNames() throws AdminException;
 
     void registerDataSource(DefaultSyndesisDataSource dataSource) throws AdminException;
@@ -99,4 +99,12 @@ public interface TeiidVdb {
     boolean hasValidationError(String schemaName, String objectName,
             String childType);
 
+    /**
+     * Imported metadata is merged when the vdb is deployed, so it becomes stale if
+     * an imported vdb is later redeployed.
+     * @return <code>true</code> if the imported vdbs have not been redeployed since
+     * this vdb was deployed
+     */
+    boolean hasCurrentImports();
+
 }
@@ -1,6 +1,14 @@
 package io.syndesis.dv.metadata.internal;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
 
 /*
  * Copyright Red Hat, Inc. and/or its affiliates
@@ -23,38 +31,166 @@ import java.io.StringReader;
 import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.teiid.metadata.AbstractMetadataRecord;
+import org.teiid.metadata.FunctionMethod;
 import org.teiid.metadata.MetadataFactory;
 import org.teiid.metadata.MetadataRepository;
+import org.teiid.metadata.Procedure;
+import org.teiid.metadata.Schema;
+import org.teiid.metadata.Table;
 import org.teiid.translator.ExecutionFactory;
 import org.teiid.translator.TranslatorException;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import io.syndesis.dv.RepositoryManager;
+import io.syndesis.dv.model.EntityVersion;
 import io.syndesis.dv.model.SourceSchema;
+import io.syndesis.dv.utils.KLog;
 
+/**
+ * Provides source metadata from the ddl saved for the source schema.
+ * <p>
+ * Parsed schemas are cached by source id and entity version, so that redeploying an unchanged
+ * source needs neither the ddl to be read nor parsed.  Entries are held serialized, both to
+ * bound the memory used and to give each deployment its own copy of the metadata.
+ */
 @Component
 public class DDLDBMetadataRepository implements MetadataRepository<Object, Object> {
 
     public static final String TYPE_NAME = "DDLDB"; //$NON-NLS-1$
 
+    private static class ParsedSchema implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Schema schema;
+        private Map<String, String> namespaces;
+    }
+
+    private static class CachedSchema {
+        private final String id;
+        private final Long version;
+        private final byte[] bytes;
+
+        CachedSchema(String id, Long version, byte[] bytes) {
+            this.id = id;
+            this.version = version;
+            this.bytes = bytes;
+        }
+
+        boolean isCurrent(EntityVersion current) {
+            return id.equals(current.getId()) && version.equals(current.getVersion());
+        }
+    }
+
     @Autowired
     private TeiidServer teiidServer;
     @Autowired
     private RepositoryManager repositoryManager;
 
+    @Value("${metadata.schema.cache.bytes:33554432}")
+    private long maxCacheBytes = 33554432;
+
+    private Cache<String, CachedSchema> cache;
+
+    public DDLDBMetadataRepository() {
+    }
+
+    DDLDBMetadataRepository(RepositoryManager repositoryManager) {
+        this.repositoryManager = repositoryManager;
+        createCache();
+    }
+
     @PostConstruct
     public void init() {
+        createCache();
         teiidServer.addMetadataRepository(TYPE_NAME, this);
     }
 
+    private void createCache() {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxCacheBytes)
+                .<String, CachedSchema>weigher((k, v) -> v.bytes.length)
+                .build();
+    }
+
     @Override
     public void loadMetadata(MetadataFactory factory,
             ExecutionFactory<Object, Object> executionFactory, Object connectionFactory,
             String text) throws TranslatorException {
+        EntityVersion current = repositoryManager.findSchemaVersionBySourceId(text);
+        if (current == null) {
+            cache.invalidate(text);
+            return;
+        }
+        CachedSchema cached = cache.getIfPresent(text);
+        if (cached != null && cached.isCurrent(current)) {
+            try {
+                restore(factory, cached.bytes);
+                return;
+            } catch (IOException | ClassNotFoundException e) {
+                KLog.getLogger().warn("Could not use the cached schema for " + text, e); //$NON-NLS-1$
+                cache.invalidate(text);
+            }
+        }
         SourceSchema schema = repositoryManager.findSchemaBySourceId(text);
         if (schema != null && schema.getDdl() != null) {
             factory.parse(new StringReader(schema.getDdl()));
+            try {
+                cache.put(text, new CachedSchema(schema.getId(), schema.getVersion(), serialize(factory)));
+            } catch (IOException e) {
+                KLog.getLogger().warn("Could not cache the schema for " + text, e); //$NON-NLS-1$
+            }
+        }
+    }
+
+    /**
+     * Remove the cached schema, typically because the {@link SourceSchema} has been removed
+     * @param sourceId
+     */
+    public void evict(String sourceId) {
+        cache.invalidate(sourceId);
+    }
+
+    long getCacheSize() {
+        return cache.size();
+    }
+
+    private static byte[] serialize(MetadataFactory factory) throws IOException {
+        ParsedSchema parsed = new ParsedSchema();
+        parsed.schema = factory.getSchema();
+        parsed.namespaces = new HashMap<>(factory.getNamespaces());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(parsed);
+        }
+        return baos.toByteArray();
+    }
+
+    private static void restore(MetadataFactory factory, byte[] bytes) throws IOException, ClassNotFoundException {
+        ParsedSchema parsed;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            parsed = (ParsedSchema)ois.readObject();
+        }
+        parsed.namespaces.forEach(factory::addNamespace);
+        Schema target = factory.getSchema();
+        target.setAnnotation(parsed.schema.getAnnotation());
+        parsed.schema.getProperties().forEach(target::setProperty);
+        for (AbstractMetadataRecord record : parsed.schema.getResolvingOrder()) {
+            if (record instanceof Table) {
+                target.addTable((Table)record);
+            } else if (record instanceof Procedure) {
+                target.addProcedure((Procedure)record);
+            }
+        }
+        for (FunctionMethod function : parsed.schema.getFunctions().values()) {
+            target.addFunction(function);
         }
+        //use the runtime types rather than the deserialized copies
+        factory.correctDatatypes(factory.getDataTypes());
     }
 
 }
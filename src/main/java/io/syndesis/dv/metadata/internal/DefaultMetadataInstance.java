@@ -28,12 +28,21 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Properties;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
 import javax.xml.stream.XMLStreamException;
 
 import io.syndesis.dv.datasources.DefaultSyndesisDataSource;
@@ -43,14 +52,17 @@ import io.syndesis.dv.metadata.TeiidDataSource;
 import io.syndesis.dv.metadata.TeiidVdb;
 import io.syndesis.dv.metadata.query.QSColumn;
 import io.syndesis.dv.metadata.query.QSResult;
+import io.syndesis.dv.metadata.query.QSResultHandler;
 import io.syndesis.dv.metadata.query.QSRow;
 import io.syndesis.dv.utils.KLog;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ResponseStatusException;
 import org.teiid.adminapi.Admin;
 import org.teiid.adminapi.AdminException;
+import org.teiid.adminapi.Model;
 import org.teiid.adminapi.Model.MetadataStatus;
 import org.teiid.adminapi.VDB;
 import org.teiid.adminapi.VDB.Status;
@@ -59,16 +71,19 @@ import org.teiid.adminapi.impl.ModelMetaData;
 import org.teiid.adminapi.impl.ModelMetaData.Message;
 import org.teiid.adminapi.impl.ModelMetaData.Message.Severity;
 import org.teiid.adminapi.impl.SourceMappingMetadata;
+import org.teiid.adminapi.impl.VDBImportMetadata;
 import org.teiid.adminapi.impl.VDBMetaData;
 import org.teiid.adminapi.impl.VDBMetadataParser;
 import org.teiid.api.exception.query.FunctionExecutionException;
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidException;
 import org.teiid.core.types.ArrayImpl;
 import org.teiid.core.types.TransformationException;
 import org.teiid.core.types.basic.ClobToStringTransform;
 import org.teiid.core.util.AccessibleByteArrayOutputStream;
 import org.teiid.core.util.ArgCheck;
+import org.teiid.deployers.CompositeVDB;
 import org.teiid.deployers.VDBLifeCycleListener;
 import org.teiid.deployers.VirtualDatabaseException;
 import org.teiid.dqp.internal.datamgr.ConnectorManagerRepository.ConnectorManagerException;
@@ -76,22 +91,30 @@ import org.teiid.metadata.AbstractMetadataRecord;
 import org.teiid.metadata.MetadataException;
 import org.teiid.metadata.MetadataFactory;
 import org.teiid.metadata.Schema;
+import org.teiid.metadata.Table;
 import org.teiid.query.function.GeometryUtils;
 import org.teiid.query.metadata.BasicQueryMetadataWrapper;
 import org.teiid.query.metadata.CompositeMetadataStore;
+import org.teiid.query.metadata.DDLStringVisitor;
 import org.teiid.query.metadata.MetadataValidator;
 import org.teiid.query.metadata.SystemMetadata;
 import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.parser.QueryParser;
+import org.teiid.query.processor.DdlPlan;
+import org.teiid.query.resolver.QueryResolver;
+import org.teiid.query.sql.lang.AlterView;
+import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.visitor.SQLStringVisitor;
+import org.teiid.query.validator.Validator;
 import org.teiid.query.validator.ValidatorReport;
 import org.teiid.translator.TranslatorException;
 import org.teiid.util.FullyQualifiedName;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zaxxer.hikari.HikariDataSource;
 
 import io.syndesis.dv.KException;
+import io.syndesis.dv.StringConstants;
 
 @Component
 public class DefaultMetadataInstance implements MetadataInstance {
@@ -214,6 +237,35 @@ public class DefaultMetadataInstance implements MetadataInstance {
             return haveErrors.contains(path);
         }
 
+        @Override
+        public boolean hasCurrentImports() {
+            DeploymentGeneration generation = vdb.getAttachment(DeploymentGeneration.class);
+            if (generation == null) {
+                //deployed prior to tracking, so the imports are unknown
+                return vdb.getVDBImports().isEmpty();
+            }
+            for (Map.Entry<String, Long> entry : generation.imports.entrySet()) {
+                if (!Objects.equals(deploymentGenerations.get(entry.getKey()), entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    /**
+     * Attached to each deployed vdb to record its generation and the generations
+     * of the vdbs it imported
+     */
+    private static class DeploymentGeneration {
+        private final long generation;
+        private final Map<String, Long> imports;
+
+        DeploymentGeneration(long generation, Map<String, Long> imports) {
+            this.generation = generation;
+            this.imports = imports;
+        }
     }
 
     public static final String DEFAULT_VDB_VERSION = "1"; //$NON-NLS-1$
@@ -221,14 +273,83 @@ public class DefaultMetadataInstance implements MetadataInstance {
     @Autowired
     private TeiidServer server;
 
+    @Autowired
+    private TeiidConnectionPool connectionPool;
+
     private Admin admin;
 
+    @Value("${query.cursor.max:16}")
+    private int maxCursors = 16;
+
+    @Value("${query.cursor.ttl:300000}")
+    private long cursorTtlMillis = 300000;
+
+    private QueryCursors cursors;
+
+    private final AtomicLong deploymentGeneration = new AtomicLong();
+    /**
+     * The generation of the current deployment of each vdb, keyed by vdb name
+     */
+    private final Map<String, Long> deploymentGenerations = new ConcurrentHashMap<>();
+    private boolean trackingDeployments;
+
+    /**
+     * Closes idle cursors, which would otherwise only be found when
+     * another cursor is used
+     */
+    private ScheduledThreadPoolExecutor cursorSweeper;
+
     public DefaultMetadataInstance() {
 
     }
 
     public DefaultMetadataInstance(TeiidServer server) {
         this.server = server;
+        this.connectionPool = new TeiidConnectionPool(server);
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        this.cursors = new QueryCursors(maxCursors, cursorTtlMillis);
+        this.cursorSweeper = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "Query Cursor Sweeper"); //$NON-NLS-1$
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, cursorTtlMillis / 2);
+        this.cursorSweeper.scheduleWithFixedDelay(this.cursors::sweep, interval, interval, TimeUnit.MILLISECONDS);
+        if (!trackingDeployments) {
+            trackingDeployments = true;
+            this.server.addVDBLifeCycleListener(new VDBLifeCycleListener() {
+                @Override
+                public void added(String name, CompositeVDB cvdb) {
+                    trackDeployment(name, cvdb.getVDB());
+                }
+
+                @Override
+                public void removed(String name, CompositeVDB cvdb) {
+                    DeploymentGeneration generation = cvdb.getVDB().getAttachment(DeploymentGeneration.class);
+                    if (generation != null) {
+                        deploymentGenerations.remove(name, generation.generation);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Imports are merged as the vdb is added, so the current
+     * generations of the imported vdbs are what was merged
+     */
+    private void trackDeployment(String name, VDBMetaData vdb) {
+        Map<String, Long> imports = new HashMap<>();
+        for (VDBImportMetadata vdbImport : vdb.getVDBImports()) {
+            imports.put(vdbImport.getName(), deploymentGenerations.get(vdbImport.getName()));
+        }
+        long generation = deploymentGeneration.incrementAndGet();
+        vdb.addAttchment(DeploymentGeneration.class, new DeploymentGeneration(generation, imports));
+        deploymentGenerations.put(name, generation);
     }
 
     public Admin getAdmin() {
@@ -239,11 +360,24 @@ public class DefaultMetadataInstance implements MetadataInstance {
         return admin;
     }
 
+    /**
+     * Get a pooled connection to the vdb
+     */
     public Connection getConnection(String vdb, String version) {
-        Properties props = new Properties();
-        //TODO: when security working the user name needs to be passed in we need to work delegation model for security
         try {
-            return server.getDriver().connect("jdbc:teiid:"+vdb+"."+version, props);
+            return connectionPool.getConnection(vdb, version);
+        } catch (SQLException e) {
+            KLog.getLogger().warn("Could not get a connection to " + vdb, e);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * Get a connection that is not pooled, for longer lived usage
+     */
+    private Connection getUnpooledConnection(String vdb, String version) {
+        try {
+            return connectionPool.connect(vdb, version);
         } catch (SQLException e) {
             KLog.getLogger().warn("Could not get a connection to " + vdb, e);
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
@@ -269,12 +403,24 @@ public class DefaultMetadataInstance implements MetadataInstance {
 
     @Override
     public QSResult query(String vdb, String query, int offset, int limit) throws KException {
-        ObjectMapper mapper = new ObjectMapper();
-
         QSResult result = new QSResult();
 
+        query(vdb, query, offset, limit, result);
+
+        KLog.getLogger().debug("Query executed and returning %d results", result.getRows().size());
+
+        return result;
+    }
+
+    @Override
+    public void query(String vdb, String query, int offset, int limit, QSResultHandler handler) throws KException {
         KLog.getLogger().debug("Commencing query execution: %s", query);
 
+        if (offset != NO_OFFSET || limit != NO_LIMIT) {
+            queryPage(vdb, query, offset, limit, handler);
+            return;
+        }
+
         Connection connection = null;
         Statement statement = null;
         ResultSet rs = null;
@@ -289,63 +435,12 @@ public class DefaultMetadataInstance implements MetadataInstance {
 
             statement = connection.createStatement();
 
-            KLog.getLogger().debug("Executing SQL Statement for query %s with offset of %d and limit of %d",
-                                   query,
-                                   offset,
-                                   limit);
-
-            if (offset != NO_OFFSET || limit != NO_LIMIT) {
-                //if we want more effective pagination, then
-                //we need to enable result set caching and parameterize the limit/offset
-                query = "SELECT * FROM (" + query + ") x LIMIT " + Math.max(0, offset) + ", " + (limit < 0?Integer.MAX_VALUE:limit);
-            }
-
-            try {
-                rs = statement.executeQuery(query);
-            } catch (SQLException e) {
-                KLog.getLogger().warn("Could not execute query: " + query, e.getMessage());
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
-            }
-
-            ResultSetMetaData rsmd = rs.getMetaData();
-            int columns = rsmd.getColumnCount();
-
-            //
-            // Populate the columns
-            //
-            for (int i = 1; i <= columns; ++i) {
-                String columnName = rsmd.getColumnName(i);
-                String columnLabel = rsmd.getColumnLabel(i);
-                String colTypeName = rsmd.getColumnTypeName(i);
-                QSColumn column = new QSColumn(colTypeName, columnName, columnLabel);
-                result.addColumn(column);
-            }
+            rs = executeQuery(statement, query);
 
-            while (rs.next()) {
-                QSRow row = new QSRow();
-                for (int i = 1; i <= columns; ++i) {
-                    Object value = rs.getObject(i);
-                    if (value instanceof ArrayImpl) {
-                        row.add(mapper.writeValueAsString(((ArrayImpl)value).getArray()));
-                    } else if (value instanceof java.sql.Blob) {
-                        row.add("blob");
-                    }  else if (value instanceof java.sql.Clob) {
-                        row.add("clob");
-                    }  else if (value instanceof org.teiid.core.types.AbstractGeospatialType) {
-                        Clob clob = GeometryUtils.geometryToClob((org.teiid.core.types.AbstractGeospatialType)value, true);
-                        ClobToStringTransform transform = new ClobToStringTransform();
-                        row.add(transform.transform(clob, String.class));
-                    } else {
-                       row.add(value);
-                    }
-                }
-                result.addRow(row);
-            }
+            int columns = addColumns(rs, handler);
 
-            KLog.getLogger().debug("Query executed and returning %d results", result.getRows().size());
-
-            return result;
-        } catch (SQLException | JsonProcessingException | FunctionExecutionException | TransformationException e) {
+            addRows(rs, columns, NO_LIMIT, handler);
+        } catch (SQLException | IOException | FunctionExecutionException | TransformationException e) {
             throw new KException(e);
         } finally {
             try {
@@ -363,11 +458,209 @@ public class DefaultMetadataInstance implements MetadataInstance {
         }
     }
 
+    /**
+     * Read a page of results from a scrollable cursor over the full query.
+     * The cursor is kept open for subsequent pages of the same query against
+     * the same vdb deployment.
+     */
+    private void queryPage(String vdb, String query, int offset, int limit, QSResultHandler handler) throws KException {
+        KLog.getLogger().debug("Reading page of query %s with offset of %d and limit of %d", //$NON-NLS-1$
+                query,
+                offset,
+                limit);
+
+        TeiidVdbImpl deployed = getVdb(vdb);
+        Object deployment = deployed == null ? null : deployed.getVDBMetaData();
+
+        QueryCursors.Cursor cursor = null;
+        PageBuffer page = new PageBuffer();
+        try {
+            while (true) {
+                cursor = cursors.get(vdb, query, deployment);
+                if (cursor == null) {
+                    cursor = openCursor(vdb, query, deployment);
+                    cursors.put(vdb, query, cursor);
+                }
+                synchronized (cursor) {
+                    if (cursor.isClosed()) {
+                        //evicted since we obtained it
+                        continue;
+                    }
+                    ResultSet rs = cursor.getResultSet();
+                    int columns = addColumns(rs, page);
+                    if (offset > 0) {
+                        rs.absolute(offset);
+                    } else {
+                        rs.beforeFirst();
+                    }
+                    addRows(rs, columns, limit, page);
+                    break;
+                }
+            }
+        } catch (SQLException | IOException | FunctionExecutionException | TransformationException e) {
+            if (cursor != null) {
+                cursors.remove(vdb, query, cursor);
+            }
+            throw new KException(e);
+        }
+
+        //the handler may be slow, so it is only written to once the cursor is released
+        try {
+            page.writeTo(handler);
+        } catch (IOException e) {
+            throw new KException(e);
+        }
+    }
+
+    /**
+     * Holds at most a page of results read under the cursor lock
+     */
+    private static class PageBuffer implements QSResultHandler {
+        private List<QSColumn> columns = new ArrayList<>();
+        private List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public void addColumn(QSColumn column) {
+            columns.add(column);
+        }
+
+        @Override
+        public void addRow(QSRow row) {
+            rows.add(row.getRow().toArray());
+        }
+
+        @Override
+        public void addRow(Object[] values) {
+            //the values array is reused by addRows
+            rows.add(values.clone());
+        }
+
+        void writeTo(QSResultHandler handler) throws IOException {
+            for (QSColumn column : columns) {
+                handler.addColumn(column);
+            }
+            for (Object[] row : rows) {
+                handler.addRow(row);
+            }
+        }
+    }
+
+    private QueryCursors.Cursor openCursor(String vdb, String query, Object deployment) throws SQLException {
+        KLog.getLogger().debug("Initialising SQL connection for vdb %s", vdb);
+        //cursors are held open, so don't tie up a pooled connection
+        Connection connection = getUnpooledConnection(vdb, DEFAULT_VDB_VERSION);
+        Statement statement = null;
+        try {
+            statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+            ResultSet rs = executeQuery(statement, query);
+            return new QueryCursors.Cursor(deployment, connection, statement, rs);
+        } catch (SQLException | RuntimeException e) {
+            if (statement != null) {
+                statement.close();
+            }
+            connection.close();
+            throw e;
+        }
+    }
+
+    private ResultSet executeQuery(Statement statement, String query) {
+        KLog.getLogger().debug("Executing SQL Statement for query %s", query);
+        try {
+            return statement.executeQuery(query);
+        } catch (SQLException e) {
+            KLog.getLogger().warn("Could not execute query: " + query, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private int addColumns(ResultSet rs, QSResultHandler handler) throws SQLException, IOException {
+        ResultSetMetaData rsmd = rs.getMetaData();
+        int columns = rsmd.getColumnCount();
+
+        //
+        // Populate the columns
+        //
+        for (int i = 1; i <= columns; ++i) {
+            String columnName = rsmd.getColumnName(i);
+            String columnLabel = rsmd.getColumnLabel(i);
+            String colTypeName = rsmd.getColumnTypeName(i);
+            QSColumn column = new QSColumn(colTypeName, columnName, columnLabel);
+            handler.addColumn(column);
+        }
+        return columns;
+    }
+
+    /**
+     * Add rows from the current position of the result set
+     */
+    private void addRows(ResultSet rs, int columns, int limit, QSResultHandler handler)
+            throws SQLException, IOException, FunctionExecutionException, TransformationException {
+        ObjectMapper mapper = new ObjectMapper();
+        int count = 0;
+        Object[] row = new Object[columns];
+        while ((limit < 0 || count++ < limit) && rs.next()) {
+            for (int i = 1; i <= columns; ++i) {
+                Object value = rs.getObject(i);
+                if (value instanceof ArrayImpl) {
+                    row[i-1] = mapper.writeValueAsString(((ArrayImpl)value).getArray());
+                } else if (value instanceof java.sql.Blob) {
+                    row[i-1] = "blob";
+                }  else if (value instanceof java.sql.Clob) {
+                    row[i-1] = "clob";
+                }  else if (value instanceof org.teiid.core.types.AbstractGeospatialType) {
+                    Clob clob = GeometryUtils.geometryToClob((org.teiid.core.types.AbstractGeospatialType)value, true);
+                    ClobToStringTransform transform = new ClobToStringTransform();
+                    row[i-1] = transform.transform(clob, String.class);
+                } else {
+                   row[i-1] = value;
+                }
+            }
+            handler.addRow(row);
+        }
+    }
+
+    QueryCursors getQueryCursors() {
+        return cursors;
+    }
+
+    @PreDestroy
+    public void closeCursors() {
+        cursorSweeper.shutdownNow();
+        cursors.clear();
+    }
+
+    TeiidConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
     @Override
     public TeiidDataSourceImpl getDataSource(String name) throws KException {
         return this.server.getDatasources().get(name);
     }
 
+    @Override
+    public List<String> getSourceTableNames(String sourceName) throws KException {
+        TeiidDataSourceImpl tds = getDataSource(sourceName);
+        if (tds == null || !(tds.getConnectionFactory() instanceof DataSource)) {
+            return null;
+        }
+        String schemaName = tds.getImportProperties().get("importer.schemaName"); //$NON-NLS-1$
+        String tableTypes = tds.getImportProperties().get("importer.TableTypes"); //$NON-NLS-1$
+        List<String> result = new ArrayList<>();
+        try (Connection connection = ((DataSource)tds.getConnectionFactory()).getConnection();
+                ResultSet rs = connection.getMetaData().getTables(null, schemaName, "%", //$NON-NLS-1$
+                        tableTypes == null ? null : tableTypes.split(","))) { //$NON-NLS-1$
+            while (rs.next()) {
+                String schema = rs.getString(2);
+                String table = rs.getString(3);
+                result.add(schema == null || schema.isEmpty() ? table : schema + StringConstants.DOT + table);
+            }
+        } catch (SQLException e) {
+            throw handleError(e);
+        }
+        return result;
+    }
+
     @Override
     public void deleteDataSource(String dsName) throws KException {
         try {
@@ -454,6 +747,163 @@ public class DefaultMetadataInstance implements MetadataInstance {
         }
     }
 
+    @Override
+    public boolean updateViews(VDBMetaData vdb) throws KException {
+        TeiidVdbImpl existing = getVdb(vdb.getName());
+        if (existing == null || !existing.isActive() || !existing.hasLoaded()
+                || !existing.getValidityErrors().isEmpty()) {
+            return false;
+        }
+        VDBMetaData deployed = existing.getVDBMetaData();
+        if (!getImportNames(deployed).equals(getImportNames(vdb))
+                //the merged imports must also be current
+                || !existing.hasCurrentImports()
+                || !getLocalModelNames(deployed).equals(vdb.getModelMetaDatas().keySet())) {
+            return false;
+        }
+
+        List<String> alters = new ArrayList<>();
+        for (ModelMetaData model : vdb.getModelMetaDatas().values()) {
+            if (!addViewAlters(existing, model, alters)) {
+                return false;
+            }
+        }
+
+        if (!alters.isEmpty()) {
+            KLog.getLogger().debug("Updating %s views in place for vdb %s", alters.size(), vdb.getName()); //$NON-NLS-1$
+            /*
+             * The alters are resolved and validated against the deployed metadata, then
+             * applied directly - executing them as statements would require org.teiid.allowAlter,
+             * which is disabled for the server
+             */
+            TransformationMetadata metadata = deployed.getAttachment(TransformationMetadata.class);
+            List<AlterView> resolved = new ArrayList<>(alters.size());
+            try {
+                for (String alter : alters) {
+                    Command command = QueryParser.getQueryParser().parseCommand(alter);
+                    QueryResolver.resolveCommand(command, metadata);
+                    ValidatorReport report = Validator.validate(command, metadata);
+                    if (report.hasItems()) {
+                        //the deploy will capture it as a validity error
+                        KLog.getLogger().debug("Could not update views in place for vdb %s: %s", vdb.getName(), report.getFailureMessage()); //$NON-NLS-1$
+                        return false;
+                    }
+                    resolved.add((AlterView)command);
+                }
+            } catch (TeiidException e) {
+                //most likely a resolving error - the deploy will capture it as a validity error
+                KLog.getLogger().debug("Could not update views in place for vdb %s: %s", vdb.getName(), e.getMessage()); //$NON-NLS-1$
+                return false;
+            }
+            try {
+                for (AlterView alterView : resolved) {
+                    DdlPlan.alterView(deployed, (Table)alterView.getTarget().getMetadataID(),
+                            alterView.getDefinition().toString(), false);
+                }
+            } finally {
+                cursors.removeAll(vdb.getName());
+            }
+        }
+
+        for (Map.Entry<String, String> entry : vdb.getPropertiesMap().entrySet()) {
+            deployed.addProperty(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * @return the names of the models defined by the deployed vdb, excluding
+     * the models merged from its imports
+     */
+    private Set<String> getLocalModelNames(VDBMetaData deployed) throws KException {
+        Set<String> result = new HashSet<>(deployed.getModelMetaDatas().keySet());
+        try {
+            for (VDBImportMetadata vdbImport : deployed.getVDBImports()) {
+                VDB imported = getAdmin().getVDB(vdbImport.getName(), vdbImport.getVersion());
+                if (imported != null) {
+                    for (Model model : imported.getModels()) {
+                        result.remove(model.getName());
+                    }
+                }
+            }
+        } catch (AdminException e) {
+            throw handleError(e);
+        }
+        return result;
+    }
+
+    private static List<String> getImportNames(VDBMetaData vdb) {
+        return vdb.getVDBImports().stream()
+                .map(vdbImport -> vdbImport.getName() + "." + vdbImport.getVersion()) //$NON-NLS-1$
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Add the alter statements needed to bring the deployed model in line with the given model.
+     * @return false if the changes are not limited to view definitions
+     */
+    private boolean addViewAlters(TeiidVdbImpl existing, ModelMetaData model, List<String> alters) {
+        Schema schema = existing.getSchema(model.getName());
+        if (schema == null
+                || model.getModelType() != Model.Type.VIRTUAL
+                || existing.getVDBMetaData().getModel(model.getName()).getModelType() != Model.Type.VIRTUAL
+                || !model.getSourceMappings().isEmpty()
+                || model.getSourceMetadataType().size() != 1
+                || !"DDL".equalsIgnoreCase(model.getSourceMetadataType().get(0)) //$NON-NLS-1$
+                || !schema.getProcedures().isEmpty()
+                || !schema.getFunctions().isEmpty()) {
+            return false;
+        }
+
+        MetadataFactory mf = new MetadataFactory(existing.getName(), existing.getVersion(),
+                SystemMetadata.getInstance().getRuntimeTypeMap(), model);
+        try {
+            QueryParser.getQueryParser().parseDDL(mf, model.getSourceMetadataText().get(0));
+        } catch (MetadataException e) {
+            return false;
+        }
+
+        Schema updated = mf.getSchema();
+        if (!updated.getProcedures().isEmpty()
+                || !updated.getFunctions().isEmpty()
+                || updated.getTables().size() != schema.getTables().size()) {
+            return false;
+        }
+
+        for (Table table : updated.getTables().values()) {
+            Table current = schema.getTable(table.getName());
+            if (current == null || !current.isVirtual() || !table.isVirtual()
+                    || !hasSameSignature(current, table)) {
+                return false;
+            }
+            if (!Objects.equals(current.getSelectTransformation(), table.getSelectTransformation())) {
+                alters.add("ALTER VIEW " + SQLStringVisitor.escapeSinglePart(schema.getName()) //$NON-NLS-1$
+                        + StringConstants.DOT + SQLStringVisitor.escapeSinglePart(table.getName())
+                        + " AS " + table.getSelectTransformation()); //$NON-NLS-1$
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compare everything other than the view definition
+     */
+    private static boolean hasSameSignature(Table current, Table table) {
+        return getTableBody(current).equals(getTableBody(table))
+                && Objects.equals(current.getInsertPlan(), table.getInsertPlan())
+                && Objects.equals(current.getUpdatePlan(), table.getUpdatePlan())
+                && Objects.equals(current.getDeletePlan(), table.getDeletePlan());
+    }
+
+    /**
+     * @return the ddl for the table name, columns, constraints and options
+     */
+    public static String getTableBody(Table table) {
+        DDLStringVisitor visitor = new DDLStringVisitor(null, null);
+        visitor.addTableBody(table);
+        return visitor.toString();
+    }
+
     @Override
     public void undeployDynamicVdb(String vdbName) throws KException {
         try {
@@ -499,7 +949,7 @@ public class DefaultMetadataInstance implements MetadataInstance {
         return this.server.getDatasources().keySet();
     }
 
-    void addTranslator(String translatorname) {
+    synchronized void addTranslator(String translatorname) {
         try {
             if (server.getExecutionFactory(translatorname) == null) {
                 server.addTranslator(ExternalSource.translatorClass(translatorname, "io.syndesis.dv.rest"));
@@ -0,0 +1,221 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.metadata.internal;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.syndesis.dv.utils.KLog;
+
+/**
+ * Holds open scrollable results for paged preview queries, keyed by vdb and query,
+ * so that fetching another page does not re-execute the query against the sources.
+ * <p>
+ * The rows themselves are held by the teiid buffer manager, which will spill to
+ * disk as needed. Cursors are closed once idle for longer than the ttl, when
+ * the maximum number of cursors is exceeded, or when the vdb they were executed
+ * against is no longer the deployed one.  Idle cursors are found as other cursors
+ * are used, or by a periodic {@link #sweep()}.
+ */
+class QueryCursors {
+
+    static class Cursor {
+        private final Object vdb;
+        private final Connection connection;
+        private final Statement statement;
+        private final ResultSet resultSet;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private boolean closed;
+
+        Cursor(Object vdb, Connection connection, Statement statement, ResultSet resultSet) {
+            this.vdb = vdb;
+            this.connection = connection;
+            this.statement = statement;
+            this.resultSet = resultSet;
+        }
+
+        /**
+         * @return the scrollable result - callers must synchronize on the cursor
+         * while positioning and reading
+         */
+        ResultSet getResultSet() {
+            lastUsed = System.currentTimeMillis();
+            return resultSet;
+        }
+
+        /**
+         * @return true if the cursor has been closed - callers must synchronize on the cursor
+         */
+        boolean isClosed() {
+            return closed;
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                resultSet.close();
+                statement.close();
+            } catch (SQLException e) {
+                // ignore
+            } finally {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private final Map<String, Cursor> cursors = new LinkedHashMap<>(16, .75f, true);
+    private final int maxCursors;
+    private final long ttlMillis;
+
+    QueryCursors(int maxCursors, long ttlMillis) {
+        this.maxCursors = maxCursors;
+        this.ttlMillis = ttlMillis;
+    }
+
+    private static String key(String vdbName, String query) {
+        return vdbName + '\u0000' + query;
+    }
+
+    /**
+     * Get a valid cursor for the query
+     * @param vdbName
+     * @param query
+     * @param vdb the currently deployed vdb instance
+     * @return the cursor or null if one does not exist
+     */
+    Cursor get(String vdbName, String query, Object vdb) {
+        Cursor cursor = null;
+        List<Cursor> expired;
+        synchronized (this) {
+            expired = removeExpired();
+            String key = key(vdbName, query);
+            cursor = cursors.get(key);
+            if (cursor != null && cursor.vdb != vdb) {
+                cursors.remove(key);
+                expired.add(cursor);
+                cursor = null;
+            }
+        }
+        expired.forEach(Cursor::close);
+        return cursor;
+    }
+
+    /**
+     * Add the cursor, closing any that it replaces or that are over the limit
+     */
+    void put(String vdbName, String query, Cursor cursor) {
+        List<Cursor> expired;
+        synchronized (this) {
+            expired = removeExpired();
+            Cursor existing = cursors.put(key(vdbName, query), cursor);
+            if (existing != null) {
+                expired.add(existing);
+            }
+            Iterator<Cursor> iter = cursors.values().iterator();
+            while (cursors.size() > maxCursors && iter.hasNext()) {
+                expired.add(iter.next());
+                iter.remove();
+            }
+        }
+        expired.forEach(Cursor::close);
+    }
+
+    /**
+     * Remove and close the cursor, typically because it could not be read
+     */
+    void remove(String vdbName, String query, Cursor cursor) {
+        synchronized (this) {
+            cursors.remove(key(vdbName, query), cursor);
+        }
+        cursor.close();
+    }
+
+    /**
+     * Remove and close all cursors for the vdb, typically because its metadata has changed
+     */
+    void removeAll(String vdbName) {
+        List<Cursor> removed = new ArrayList<>();
+        String prefix = key(vdbName, ""); //$NON-NLS-1$
+        synchronized (this) {
+            Iterator<Map.Entry<String, Cursor>> iter = cursors.entrySet().iterator();
+            while (iter.hasNext()) {
+                Map.Entry<String, Cursor> entry = iter.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    removed.add(entry.getValue());
+                    iter.remove();
+                }
+            }
+        }
+        removed.forEach(Cursor::close);
+    }
+
+    void clear() {
+        List<Cursor> all;
+        synchronized (this) {
+            all = new ArrayList<>(cursors.values());
+            cursors.clear();
+        }
+        all.forEach(Cursor::close);
+    }
+
+    /**
+     * Close the cursors that have been idle for longer than the ttl
+     */
+    void sweep() {
+        List<Cursor> expired;
+        synchronized (this) {
+            expired = removeExpired();
+        }
+        expired.forEach(Cursor::close);
+    }
+
+    synchronized int size() {
+        return cursors.size();
+    }
+
+    private List<Cursor> removeExpired() {
+        List<Cursor> expired = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Iterator<Cursor> iter = cursors.values().iterator(); iter.hasNext();) {
+            Cursor cursor = iter.next();
+            if (now - cursor.lastUsed > ttlMillis) {
+                iter.remove();
+                expired.add(cursor);
+            }
+        }
+        if (!expired.isEmpty()) {
+            KLog.getLogger().debug("Closing %d idle query cursors", expired.size()); //$NON-NLS-1$
+        }
+        return expired;
+    }
+
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.metadata.internal;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.teiid.deployers.CompositeVDB;
+import org.teiid.deployers.VDBLifeCycleListener;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.pool.HikariPool.PoolInitializationException;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+
+import io.syndesis.dv.utils.KLog;
+
+/**
+ * Pools local connections to the embedded server, with a pool per vdb, so that
+ * preview queries do not pay the session setup cost of a new connection each time.
+ * <p>
+ * The pool for a vdb is discarded when the vdb is removed - which includes a redeploy -
+ * so a pooled connection is never used against a stale deployment.
+ */
+@Component
+@ManagedResource(objectName = "io.syndesis.dv:type=TeiidConnectionPool", description = "Pooled local Teiid connections")
+public class TeiidConnectionPool implements VDBLifeCycleListener {
+
+    /**
+     * Provides connections from the embedded driver, which is not
+     * available through the DriverManager
+     */
+    private class LocalDataSource implements DataSource {
+        private final String url;
+
+        LocalDataSource(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return connect(url);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return connect(url);
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            throw new SQLException("Not a wrapper"); //$NON-NLS-1$
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return false;
+        }
+    }
+
+    private class Tracker implements IMetricsTracker {
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            created.incrementAndGet();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquired.incrementAndGet();
+            waitNanos.addAndGet(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.incrementAndGet();
+        }
+    }
+
+    @Autowired
+    private TeiidServer server;
+
+    @Value("${teiid.pool.max:5}")
+    private int maxPoolSize = 5;
+
+    @Value("${teiid.pool.idleTimeout:300000}")
+    private long idleTimeoutMillis = 300000;
+
+    private final Map<String, HikariDataSource> pools = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    //closing waits on active connections, so it is kept off of the housekeeping thread
+    private final ThreadPoolExecutor closer = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), r -> {
+                Thread t = new Thread(r, "Teiid Connection Pool Closer"); //$NON-NLS-1$
+                t.setDaemon(true);
+                return t;
+            });
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    public TeiidConnectionPool() {
+    }
+
+    public TeiidConnectionPool(TeiidServer server) {
+        this.server = server;
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        this.executor.setRemoveOnCancelPolicy(true);
+        this.server.addVDBLifeCycleListener(this);
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+        pools.clear();
+        executor.shutdownNow();
+        closer.shutdown();
+    }
+
+    /**
+     * Get a pooled connection, which will be returned to the pool when closed
+     */
+    public Connection getConnection(String vdb, String version) throws SQLException {
+        String key = vdb + "." + version; //$NON-NLS-1$
+        while (true) {
+            HikariDataSource ds = null;
+            try {
+                ds = pools.computeIfAbsent(key, this::createPool);
+            } catch (PoolInitializationException e) {
+                //the pool fails fast if the first connection cannot be made
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException)e.getCause();
+                }
+                throw new SQLException(e.getMessage(), e);
+            }
+            if (ds.isClosed()) {
+                //lost a race with removal
+                pools.remove(key, ds);
+                continue;
+            }
+            return ds.getConnection();
+        }
+    }
+
+    /**
+     * Get a new connection that does not come from the pool
+     */
+    public Connection connect(String vdb, String version) throws SQLException {
+        return connect(vdb + "." + version); //$NON-NLS-1$
+    }
+
+    private Connection connect(String key) throws SQLException {
+        //TODO: when security working the user name needs to be passed in we need to work delegation model for security
+        return server.getDriver().connect("jdbc:teiid:" + key, new Properties()); //$NON-NLS-1$
+    }
+
+    private HikariDataSource createPool(String key) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("teiid-" + key); //$NON-NLS-1$
+        config.setDataSource(new LocalDataSource(key));
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setMinimumIdle(0);
+        config.setIdleTimeout(idleTimeoutMillis);
+        config.setScheduledExecutor(executor);
+        config.setMetricsTrackerFactory((poolName, poolStats) -> new Tracker());
+        return new HikariDataSource(config);
+    }
+
+    @Override
+    public void removed(String name, CompositeVDB cvdb) {
+        HikariDataSource ds = pools.remove(name + "." + cvdb.getVDB().getVersion()); //$NON-NLS-1$
+        if (ds != null) {
+            KLog.getLogger().debug("Closing connection pool for vdb %s", name); //$NON-NLS-1$
+            //closing will wait on active connections, so don't block the undeploy
+            closer.execute(ds::close);
+        }
+    }
+
+    private int sum(ToIntFunction<HikariPoolMXBean> value) {
+        int result = 0;
+        for (HikariDataSource ds : pools.values()) {
+            HikariPoolMXBean bean = ds.getHikariPoolMXBean();
+            if (bean != null) {
+                result += value.applyAsInt(bean);
+            }
+        }
+        return result;
+    }
+
+    @ManagedAttribute(description = "Number of vdbs with a connection pool")
+    public int getPoolCount() {
+        return pools.size();
+    }
+
+    @ManagedAttribute(description = "Total connections across all pools")
+    public int getTotalConnections() {
+        return sum(HikariPoolMXBean::getTotalConnections);
+    }
+
+    @ManagedAttribute(description = "Connections currently in use")
+    public int getActiveConnections() {
+        return sum(HikariPoolMXBean::getActiveConnections);
+    }
+
+    @ManagedAttribute(description = "Connections currently idle")
+    public int getIdleConnections() {
+        return sum(HikariPoolMXBean::getIdleConnections);
+    }
+
+    @ManagedAttribute(description = "Threads waiting on a connection")
+    public int getThreadsAwaitingConnection() {
+        return sum(HikariPoolMXBean::getThreadsAwaitingConnection);
+    }
+
+    @ManagedAttribute(description = "Number of connections obtained from the pools")
+    public long getConnectionsAcquired() {
+        return acquired.get();
+    }
+
+    @ManagedAttribute(description = "Number of new connections created by the pools")
+    public long getConnectionsCreated() {
+        return created.get();
+    }
+
+    @ManagedAttribute(description = "Number of timeouts waiting on a connection")
+    public long getConnectionTimeouts() {
+        return timeouts.get();
+    }
+
+    @ManagedAttribute(description = "Average time in milliseconds to obtain a connection")
+    public double getAverageWaitMillis() {
+        long count = acquired.get();
+        if (count == 0) {
+            return 0;
+        }
+        return waitNanos.get() / (double)count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @ManagedAttribute(description = "Fraction of connections obtained without creating a new connection")
+    public double getHitRate() {
+        long count = acquired.get();
+        if (count == 0) {
+            return 0;
+        }
+        return Math.max(0, 1 - created.get() / (double)count);
+    }
+
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.metadata.query;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.teiid.core.types.DataTypeManager.DefaultDataTypes;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A {@link QSResultHandler} that writes a compact columnar form of the result:
+ * <pre>
+ * {"columns":[...],"chunks":[{"rowCount":n,"values":[[column 1 values],[column 2 values],...]},...],"rowCount":total}
+ * </pre>
+ * Values are held per column in primitive arrays where the column type allows,
+ * rather than as a list of objects per row.  Since the values are grouped by column,
+ * rows are buffered and written a chunk at a time - so memory usage is bounded by
+ * the chunk size rather than the size of the result.  Nothing is written until the
+ * first chunk is full or {@link #finish()} is called.
+ */
+public class QSColumnarWriter implements QSResultHandler {
+
+    public static final String MEDIA_TYPE = "application/vnd.syndesis.dv.columnar+json"; //$NON-NLS-1$
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private static abstract class Vector {
+        protected BitSet nulls = new BitSet();
+
+        void add(int index, Object value) {
+            if (value == null) {
+                nulls.set(index);
+            } else {
+                set(index, value);
+            }
+        }
+
+        abstract void set(int index, Object value);
+
+        void write(JsonGenerator generator, int size) throws IOException {
+            generator.writeStartArray();
+            for (int i = 0; i < size; i++) {
+                if (nulls.get(i)) {
+                    generator.writeNull();
+                } else {
+                    writeValue(generator, i);
+                }
+            }
+            generator.writeEndArray();
+        }
+
+        abstract void writeValue(JsonGenerator generator, int index) throws IOException;
+
+        /**
+         * Prepare for the next chunk
+         */
+        void clear() {
+            nulls.clear();
+        }
+    }
+
+    private static class IntVector extends Vector {
+        private final int[] values;
+
+        IntVector(int size) {
+            values = new int[size];
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = ((Number)value).intValue();
+        }
+
+        @Override
+        void writeValue(JsonGenerator generator, int index) throws IOException {
+            generator.writeNumber(values[index]);
+        }
+    }
+
+    private static class LongVector extends Vector {
+        private final long[] values;
+
+        LongVector(int size) {
+            values = new long[size];
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = ((Number)value).longValue();
+        }
+
+        @Override
+        void writeValue(JsonGenerator generator, int index) throws IOException {
+            generator.writeNumber(values[index]);
+        }
+    }
+
+    private static class DoubleVector extends Vector {
+        private final double[] values;
+
+        DoubleVector(int size) {
+            values = new double[size];
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = ((Number)value).doubleValue();
+        }
+
+        @Override
+        void writeValue(JsonGenerator generator, int index) throws IOException {
+            generator.writeNumber(values[index]);
+        }
+    }
+
+    private static class BooleanVector extends Vector {
+        private BitSet values = new BitSet();
+
+        @Override
+        void set(int index, Object value) {
+            values.set(index, (Boolean)value);
+        }
+
+        @Override
+        void writeValue(JsonGenerator generator, int index) throws IOException {
+            generator.writeBoolean(values.get(index));
+        }
+    }
+
+    private static class ObjectVector extends Vector {
+        private final Object[] values;
+
+        ObjectVector(int size) {
+            values = new Object[size];
+        }
+
+        @Override
+        void add(int index, Object value) {
+            //nulls are simply held in the array
+            set(index, value);
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = value;
+        }
+
+        @Override
+        void write(JsonGenerator generator, int size) throws IOException {
+            generator.writeStartArray();
+            for (int i = 0; i < size; i++) {
+                writeValue(generator, i);
+            }
+            generator.writeEndArray();
+        }
+
+        @Override
+        void writeValue(JsonGenerator generator, int index) throws IOException {
+            generator.writeObject(values[index]);
+        }
+
+        @Override
+        void clear() {
+            //don't retain references to the written values
+            Arrays.fill(values, null);
+        }
+    }
+
+    private final JsonGenerator generator;
+    private final int chunkSize;
+    private final List<QSColumn> columns = new ArrayList<>();
+    private final List<Vector> vectors = new ArrayList<>();
+    private boolean started;
+    private int chunkRowCount;
+    private long rowCount;
+
+    /**
+     * @param out
+     * @param mapper the mapper used to serialize values, which should be the same as
+     * used for the rest of the json responses so that values such as dates have the same form
+     * @throws IOException
+     */
+    public QSColumnarWriter(OutputStream out, ObjectMapper mapper) throws IOException {
+        this(out, mapper, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize the maximum number of rows held in memory
+     */
+    public QSColumnarWriter(OutputStream out, ObjectMapper mapper, int chunkSize) throws IOException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk size must be positive"); //$NON-NLS-1$
+        }
+        this.generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void addColumn(QSColumn column) throws IOException {
+        columns.add(column);
+        vectors.add(createVector(column.getType(), chunkSize));
+    }
+
+    private static Vector createVector(String type, int size) {
+        if (type == null) {
+            return new ObjectVector(size);
+        }
+        switch (type) {
+        case DefaultDataTypes.BYTE:
+        case DefaultDataTypes.SHORT:
+        case DefaultDataTypes.INTEGER:
+            return new IntVector(size);
+        case DefaultDataTypes.LONG:
+            return new LongVector(size);
+        case DefaultDataTypes.FLOAT:
+        case DefaultDataTypes.DOUBLE:
+            return new DoubleVector(size);
+        case DefaultDataTypes.BOOLEAN:
+            return new BooleanVector();
+        default:
+            return new ObjectVector(size);
+        }
+    }
+
+    @Override
+    public void addRow(QSRow row) throws IOException {
+        addRow(row.getRow().toArray());
+    }
+
+    @Override
+    public void addRow(Object[] values) throws IOException {
+        for (int i = 0; i < vectors.size(); i++) {
+            vectors.get(i).add(chunkRowCount, values[i]);
+        }
+        chunkRowCount++;
+        rowCount++;
+        if (chunkRowCount == chunkSize) {
+            writeChunk();
+        }
+    }
+
+    /**
+     * Write any remaining rows, complete the json document and flush the generator.
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        if (chunkRowCount > 0) {
+            writeChunk();
+        } else {
+            start();
+        }
+        generator.writeEndArray();
+        generator.writeNumberField("rowCount", rowCount); //$NON-NLS-1$
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private void start() throws IOException {
+        if (started) {
+            return;
+        }
+        started = true;
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("columns"); //$NON-NLS-1$
+        for (QSColumn column : columns) {
+            generator.writeObject(column);
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("chunks"); //$NON-NLS-1$
+    }
+
+    private void writeChunk() throws IOException {
+        start();
+        generator.writeStartObject();
+        generator.writeNumberField("rowCount", chunkRowCount); //$NON-NLS-1$
+        generator.writeArrayFieldStart("values"); //$NON-NLS-1$
+        for (Vector vector : vectors) {
+            vector.write(generator, chunkRowCount);
+            vector.clear();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        chunkRowCount = 0;
+    }
+
+}
@@ -26,7 +26,7 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 @JsonSerialize(as = QSResult.class)
 @JsonInclude(Include.NON_NULL)
-public class QSResult {
+public class QSResult implements QSResultHandler {
 
     private final List<QSColumn> columns = new ArrayList<QSColumn>();
 
@@ -36,6 +36,7 @@ public class QSResult {
         return columns;
     }
 
+    @Override
     public void addColumn(QSColumn column) {
         this.columns.add(column);
     }
@@ -44,6 +45,7 @@ public class QSResult {
         return rows;
     }
 
+    @Override
     public void addRow(QSRow row) {
         this.rows.add(row);
     }
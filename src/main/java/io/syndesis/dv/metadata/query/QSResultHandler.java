@@ -0,0 +1,55 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.metadata.query;
+
+import java.io.IOException;
+
+/**
+ * Receives the columns and then the rows of a query result as they are read
+ * from the underlying result set
+ */
+public interface QSResultHandler {
+
+    /**
+     * @param column
+     * @throws IOException
+     */
+    void addColumn(QSColumn column) throws IOException;
+
+    /**
+     * Called for each row after all columns have been added
+     * @param row
+     * @throws IOException
+     */
+    void addRow(QSRow row) throws IOException;
+
+    /**
+     * Called for each row after all columns have been added.  The values array
+     * may be reused by the caller, so must not be retained.
+     * @param values
+     * @throws IOException
+     */
+    default void addRow(Object[] values) throws IOException {
+        QSRow row = new QSRow();
+        for (Object value : values) {
+            row.add(value);
+        }
+        addRow(row);
+    }
+
+}
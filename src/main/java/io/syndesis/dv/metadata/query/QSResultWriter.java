@@ -0,0 +1,107 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.metadata.query;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A {@link QSResultHandler} that writes the same json as a serialized {@link QSResult},
+ * but directly to the given stream as rows are received - so that memory usage does
+ * not depend upon the size of the result.
+ * <p>
+ * Nothing is written until the first column is added, and the document is only
+ * completed by {@link #finish()}, so a failure prior to reading the result
+ * will leave the stream untouched.
+ */
+public class QSResultWriter implements QSResultHandler {
+
+    private final JsonGenerator generator;
+    private boolean started;
+    private boolean rowsStarted;
+
+    /**
+     * @param out
+     * @param mapper the mapper used to serialize values, which should be the same as
+     * used for the rest of the json responses so that values such as dates have the same form
+     * @throws IOException
+     */
+    public QSResultWriter(OutputStream out, ObjectMapper mapper) throws IOException {
+        this.generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+    }
+
+    @Override
+    public void addColumn(QSColumn column) throws IOException {
+        start();
+        generator.writeObject(column);
+    }
+
+    @Override
+    public void addRow(QSRow row) throws IOException {
+        startRows();
+        generator.writeObject(row);
+    }
+
+    /**
+     * Write the row directly, rather than creating a {@link QSRow}
+     */
+    @Override
+    public void addRow(Object[] values) throws IOException {
+        startRows();
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("row"); //$NON-NLS-1$
+        for (Object value : values) {
+            generator.writeObject(value);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Complete the json document and flush the generator.
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        startRows();
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private void start() throws IOException {
+        if (!started) {
+            started = true;
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("columns"); //$NON-NLS-1$
+        }
+    }
+
+    private void startRows() throws IOException {
+        if (!rowsStarted) {
+            start();
+            rowsStarted = true;
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("rows"); //$NON-NLS-1$
+        }
+    }
+
+}
@@ -18,18 +18,137 @@
 
 package io.syndesis.dv.model;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.DiscriminatorValue;
+import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.JoinColumn;
+import javax.persistence.OrderColumn;
 
 import org.hibernate.annotations.DynamicUpdate;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import io.syndesis.dv.repository.JpaConverterJson;
+
 @Entity
 @DynamicUpdate
 @DiscriminatorValue("s")
 public class SourceSchema extends BaseDataVirtualization {
 
+    /**
+     * Prefix of the ddl recorded when the schema could not be loaded
+     */
+    public static final String FAILED_DDL = "--failed: "; //$NON-NLS-1$
+
+    static final int MAX_ERROR_LENGTH = 4000;
+
+    public enum State {
+        LOADED,
+        FAILED
+    }
+
+    /**
+     * Limits the tables imported from the source.  Patterns are regular expressions
+     * matched against the table name qualified by the source schema name, if any.
+     */
+    @JsonInclude(Include.NON_NULL)
+    public static class ImportSettings {
+        private List<String> include = new ArrayList<>(1);
+        private List<String> exclude = new ArrayList<>(1);
+        private boolean referencedOnly;
+
+        /**
+         * @return the patterns of the tables to import, if empty all tables not
+         * excluded are imported
+         */
+        public List<String> getInclude() {
+            return include;
+        }
+        public void setInclude(List<String> include) {
+            this.include = include;
+        }
+        /**
+         * @return the patterns of the tables not to import
+         */
+        public List<String> getExclude() {
+            return exclude;
+        }
+        public void setExclude(List<String> exclude) {
+            this.exclude = exclude;
+        }
+        /**
+         * @return true if only tables that are included or referenced by view
+         * definitions should be imported
+         */
+        public boolean isReferencedOnly() {
+            return referencedOnly;
+        }
+        public void setReferencedOnly(boolean referencedOnly) {
+            this.referencedOnly = referencedOnly;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(include, exclude, referencedOnly);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ImportSettings)) {
+                return false;
+            }
+            ImportSettings other = (ImportSettings)obj;
+            return Objects.equals(include, other.include)
+                    && Objects.equals(exclude, other.exclude)
+                    && referencedOnly == other.referencedOnly;
+        }
+    }
+
+    public static class ImportSettingsConvertor extends JpaConverterJson<ImportSettings> {
+        @Override
+        public Class<ImportSettings> targetClass() {
+            return ImportSettings.class;
+        }
+    }
+
+    /*
+     * the ddl can be several megabytes, callers needing only the state
+     * should use the {@link SourceSchemaState} projection
+     */
     private String ddl;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "schema_state")
+    private State state;
+
+    @Column(name = "schema_error")
+    private String error;
+
+    @Convert(converter = ImportSettingsConvertor.class)
+    private ImportSettings importSettings;
+
+    private boolean tableCatalogRead;
+
+    /*
+     * the names of all source tables, which may be many thousands, so
+     * they are kept in their own table and loaded only when requested
+     */
+    @ElementCollection
+    @CollectionTable(name = "source_table_catalog", joinColumns = @JoinColumn(name = "schema_id"))
+    @OrderColumn(name = "table_index")
+    @Column(name = "table_name")
+    private List<String> tableCatalog = new ArrayList<>();
+
     public SourceSchema() {
     }
 
@@ -37,8 +156,69 @@ public class SourceSchema extends BaseDataVirtualization {
         return ddl;
     }
 
+    /**
+     * Set the ddl, which also determines the {@link State} and error
+     * @param ddl
+     */
     public void setDdl(String ddl) {
         this.ddl = ddl;
+        if (ddl == null) {
+            this.state = null;
+            this.error = null;
+        } else if (ddl.startsWith(FAILED_DDL)) {
+            this.state = State.FAILED;
+            String message = ddl.substring(FAILED_DDL.length());
+            if (message.length() > MAX_ERROR_LENGTH) {
+                message = message.substring(0, MAX_ERROR_LENGTH);
+            }
+            this.error = message;
+        } else {
+            this.state = State.LOADED;
+            this.error = null;
+        }
+    }
+
+    /**
+     * @return the state of the schema or null if it has not yet been loaded
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return the load error or null if the schema did not fail
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return the import settings or null if all tables are imported
+     */
+    public ImportSettings getImportSettings() {
+        return importSettings;
+    }
+
+    public void setImportSettings(ImportSettings importSettings) {
+        this.importSettings = importSettings;
+    }
+
+    /**
+     * @return the qualified names of all source tables, or null if the catalog has not been read
+     */
+    public List<String> getTableCatalog() {
+        if (!tableCatalogRead) {
+            return null;
+        }
+        return new ArrayList<>(tableCatalog);
+    }
+
+    public void setTableCatalog(List<String> tableNames) {
+        this.tableCatalogRead = tableNames != null;
+        this.tableCatalog.clear();
+        if (tableNames != null) {
+            this.tableCatalog.addAll(tableNames);
+        }
     }
 
 }
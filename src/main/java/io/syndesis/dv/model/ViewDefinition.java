@@ -18,15 +18,27 @@
 package io.syndesis.dv.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
 
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.Convert;
+import javax.persistence.ElementCollection;
+import javax.persistence.Embeddable;
 import javax.persistence.Entity;
+import javax.persistence.JoinColumn;
 
 import org.hibernate.annotations.DynamicUpdate;
+import org.springframework.data.util.Pair;
+
 import io.syndesis.dv.repository.JpaConverterJson;
+import io.syndesis.dv.utils.PathUtils;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
@@ -75,6 +87,73 @@ public class ViewDefinition extends BaseEntity {
         }
     }
 
+    /**
+     * A source table referenced by a view, which is maintained from the
+     * source paths so that the views affected by a source change can be found
+     * without reading every view.
+     */
+    @Embeddable
+    public static class SourceTable {
+        @Column(name = "source_name")
+        private String sourceName;
+        @Column(name = "table_name")
+        private String tableName;
+
+        protected SourceTable() {
+        }
+
+        public SourceTable(String sourceName, String tableName) {
+            this.sourceName = sourceName;
+            this.tableName = tableName;
+        }
+
+        public String getSourceName() {
+            return sourceName;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sourceName, tableName);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SourceTable)) {
+                return false;
+            }
+            SourceTable other = (SourceTable)obj;
+            return Objects.equals(sourceName, other.sourceName)
+                    && Objects.equals(tableName, other.tableName);
+        }
+
+        /**
+         * @return the source tables for paths of the form schema=x/table=y
+         */
+        public static Set<SourceTable> fromPaths(Collection<String> sourcePaths) {
+            Set<SourceTable> result = new HashSet<>();
+            if (sourcePaths == null) {
+                return result;
+            }
+            for (String path : sourcePaths) {
+                List<Pair<String, String>> options = null;
+                try {
+                    options = PathUtils.getOptions(path);
+                } catch (NoSuchElementException e) {
+                    //not an option path
+                    continue;
+                }
+                if (options.size() == 2) {
+                    result.add(new SourceTable(options.get(0).getSecond(), options.get(1).getSecond()));
+                }
+            }
+            return result;
+        }
+    }
+
     private String ddl;
     @Column(name = "dv_name")
     private String dataVirtualizationName;
@@ -88,6 +167,11 @@ public class ViewDefinition extends BaseEntity {
     @Convert(converter = ViewDefinitionStateConvertor.class)
     private State state = new State();
 
+    @JsonIgnore
+    @ElementCollection
+    @CollectionTable(name = "view_source", joinColumns = @JoinColumn(name = "view_id"))
+    private Set<SourceTable> sourceTables = new HashSet<>();
+
     protected ViewDefinition() {
     }
 
@@ -128,16 +212,28 @@ public class ViewDefinition extends BaseEntity {
         return this.userDefined;
     }
 
+    /**
+     * @return the source paths, which are modified only through the setters
+     * so that the source tables are kept in sync
+     */
     public List<String> getSourcePaths() {
-        return state.sourcePaths;
+        if (state.sourcePaths == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(state.sourcePaths);
     }
 
     public void addSourcePath(String sourcePath) {
-        this.getSourcePaths().add(sourcePath);
+        if (state.sourcePaths == null) {
+            state.sourcePaths = new ArrayList<>(1);
+        }
+        state.sourcePaths.add(sourcePath);
+        sourceTables.addAll(SourceTable.fromPaths(Collections.singleton(sourcePath)));
     }
 
     public void setSourcePaths(List<String> sourcePaths) {
-        state.sourcePaths = sourcePaths;
+        state.sourcePaths = sourcePaths == null ? new ArrayList<>(1) : new ArrayList<>(sourcePaths);
+        updateSourceTables();
     }
 
     public String getDataVirtualizationName() {
@@ -154,10 +250,26 @@ public class ViewDefinition extends BaseEntity {
 
     public void setState(State state) {
         this.state = state;
+        updateSourceTables();
     }
 
     public void clearState() {
         this.state = new State();
+        this.sourceTables.clear();
+    }
+
+    /**
+     * @return the source tables of the source paths
+     */
+    public Set<SourceTable> getSourceTables() {
+        return Collections.unmodifiableSet(sourceTables);
+    }
+
+    private void updateSourceTables() {
+        Set<SourceTable> current = SourceTable.fromPaths(state.sourcePaths);
+        //modify in place so that only the differences are written
+        sourceTables.retainAll(current);
+        sourceTables.addAll(current);
     }
 
     public boolean isParsable() {
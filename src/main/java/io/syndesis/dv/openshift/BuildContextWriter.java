@@ -0,0 +1,207 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes the s2i build context as a ustar archive directly to a stream.
+ * <br>
+ * Parent directory entries are added as needed.  Entries are written as they are
+ * added, so the only copy of the contents is held by the caller.
+ */
+final class BuildContextWriter implements Closeable {
+
+    interface Contents {
+        void write(BuildContextWriter writer) throws IOException;
+    }
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int NAME_LENGTH = 100;
+    private static final int PREFIX_LENGTH = 155;
+
+    private final OutputStream out;
+    private final byte[] header = new byte[BLOCK_SIZE];
+    private final long modified = System.currentTimeMillis() / 1000;
+    private final Set<String> directories = new HashSet<>();
+    private boolean finished;
+
+    BuildContextWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Write the contents on the executor to a pipe of the given size.
+     * <br>
+     * The returned stream is read as the contents are written.  If the contents cannot
+     * be written, reading fails rather than ending early.  The stream must be closed
+     * so that a writer blocked on a full pipe is released.
+     */
+    static InputStream stream(Executor executor, int bufferSize, Contents contents) throws IOException {
+        PipedInputStream in = new PipedInputStream(bufferSize);
+        PipedOutputStream pipe = new PipedOutputStream(in);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try (BuildContextWriter writer = new BuildContextWriter(pipe)) {
+                contents.write(writer);
+                writer.finish();
+                //complete prior to closing so that the reader sees the result at the end of the stream
+                result.complete(null);
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                return checkEnd(super.read());
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return checkEnd(super.read(b, off, len));
+            }
+
+            private int checkEnd(int value) throws IOException {
+                if (value == -1) {
+                    try {
+                        result.get();
+                    } catch (ExecutionException e) {
+                        throw new IOException("Could not write the build context", e.getCause()); //$NON-NLS-1$
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    }
+                }
+                return value;
+            }
+        };
+    }
+
+    void addEntry(String path, String contents) throws IOException {
+        byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+        addEntry(path, bytes, 0, bytes.length);
+    }
+
+    void addEntry(String path, byte[] contents, int offset, int length) throws IOException {
+        addDirectories(path);
+        writeHeader(path, '0', length);
+        out.write(contents, offset, length);
+        int remainder = length % BLOCK_SIZE;
+        if (remainder != 0) {
+            out.write(new byte[BLOCK_SIZE - remainder]);
+        }
+    }
+
+    private void addDirectories(String path) throws IOException {
+        int index = path.indexOf('/');
+        while (index > 0) {
+            String directory = path.substring(0, index + 1);
+            if (directories.add(directory)) {
+                writeHeader(directory, '5', 0);
+            }
+            index = path.indexOf('/', index + 1);
+        }
+    }
+
+    private void writeHeader(String path, char type, long size) throws IOException {
+        byte[] name = path.getBytes(StandardCharsets.UTF_8);
+        int nameStart = 0;
+        if (name.length > NAME_LENGTH) {
+            //split into the prefix and name fields at a directory separator
+            for (int i = name.length - NAME_LENGTH - 1; i < name.length - 1 && nameStart == 0; i++) {
+                if (name[i] == '/') {
+                    nameStart = i + 1;
+                }
+            }
+            if (nameStart == 0 || nameStart - 1 > PREFIX_LENGTH) {
+                throw new IOException("Path is too long for the build context: " + path); //$NON-NLS-1$
+            }
+        }
+        Arrays.fill(header, (byte)0);
+        System.arraycopy(name, nameStart, header, 0, name.length - nameStart);
+        writeOctal(type == '5' ? 0755 : 0644, 100, 8);
+        writeOctal(0, 108, 8);
+        writeOctal(0, 116, 8);
+        writeOctal(size, 124, 12);
+        writeOctal(modified, 136, 12);
+        header[156] = (byte)type;
+        writeAscii("ustar", 257); //$NON-NLS-1$
+        writeAscii("00", 263); //$NON-NLS-1$
+        if (nameStart > 0) {
+            System.arraycopy(name, 0, header, 345, nameStart - 1);
+        }
+        //the checksum is computed with the checksum field as spaces
+        Arrays.fill(header, 148, 156, (byte)' ');
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        writeOctal(checksum, 148, 7);
+        out.write(header);
+    }
+
+    /**
+     * Write a zero padded, null terminated octal value
+     */
+    private void writeOctal(long value, int offset, int length) {
+        String octal = Long.toOctalString(value);
+        int digits = length - 1;
+        for (int i = 0; i < digits; i++) {
+            int index = octal.length() - digits + i;
+            header[offset + i] = (byte)(index < 0 ? '0' : octal.charAt(index));
+        }
+        header[offset + digits] = 0;
+    }
+
+    private void writeAscii(String value, int offset) {
+        for (int i = 0; i < value.length(); i++) {
+            header[offset + i] = (byte)value.charAt(i);
+        }
+    }
+
+    /**
+     * Write the end of archive marker
+     */
+    void finish() throws IOException {
+        if (!finished) {
+            finished = true;
+            out.write(new byte[BLOCK_SIZE * 2]);
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+}
@@ -119,16 +119,37 @@ public class BuildStatus {
     private volatile String publishPodName;
     private volatile long lastUpdated = 0L;
     private volatile String statusMessage;
-    private List<RouteStatus> routes = null;
-    private List<String> usedBy = Collections.emptyList();
+    /**
+     * Copy on write so that the status may be read and copied while it is updated
+     */
+    private volatile List<RouteStatus> routes = null;
+    private volatile List<String> usedBy = Collections.emptyList();
 
-    private String openShiftName;
-    private String dataVirtualizationName;
+    private final String openShiftName;
+    private volatile String dataVirtualizationName;
 
     public BuildStatus(String openShiftName) {
         this.openShiftName = openShiftName;
     }
 
+    /**
+     * Copy the current state of the other status
+     */
+    public BuildStatus(BuildStatus other) {
+        this.openShiftName = other.openShiftName;
+        this.dataVirtualizationName = other.dataVirtualizationName;
+        this.status = other.status;
+        this.publishConfiguration = other.publishConfiguration;
+        this.name = other.name;
+        this.deploymentName = other.deploymentName;
+        this.namespace = other.namespace;
+        this.publishPodName = other.publishPodName;
+        this.lastUpdated = other.lastUpdated;
+        this.statusMessage = other.statusMessage;
+        this.routes = other.routes;
+        this.usedBy = other.usedBy;
+    }
+
     public PublishConfiguration getPublishConfiguration() {
         return publishConfiguration;
     }
@@ -200,18 +221,20 @@ public class BuildStatus {
         return this.routes;
     }
 
-    public void addRoute(RouteStatus route) {
+    public synchronized void addRoute(RouteStatus route) {
         if (route == null)
             return;
 
-        if (this.routes == null)
-            this.routes = new ArrayList<RouteStatus>();
+        List<RouteStatus> newRoutes = new ArrayList<RouteStatus>();
+        if (this.routes != null)
+            newRoutes.addAll(this.routes);
 
-        this.routes.add(route);
+        newRoutes.add(route);
+        this.routes = Collections.unmodifiableList(newRoutes);
     }
 
-    public void setRoutes(List<RouteStatus> routes) {
-        this.routes = routes;
+    public synchronized void setRoutes(List<RouteStatus> routes) {
+        this.routes = copy(routes);
     }
 
     public String getOpenShiftName() {
@@ -231,6 +254,13 @@ public class BuildStatus {
     }
 
     public void setUsedBy(List<String> usedBy) {
-        this.usedBy = usedBy;
+        this.usedBy = copy(usedBy);
+    }
+
+    private static <T> List<T> copy(List<T> list) {
+        if (list == null) {
+            return null;
+        }
+        return Collections.unmodifiableList(new ArrayList<T>(list));
     }
 }
@@ -0,0 +1,256 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * An index of connection id to the names of the integrations using the connection.
+ * <br>
+ * Readers see an immutable snapshot, updates are made under the index lock
+ * and replace the snapshot.  The integrations are fetched from syndesis
+ * before the lock is taken - changes received while a full load is being
+ * fetched are applied over the loaded integrations.
+ */
+class IntegrationUsageIndex {
+
+    static class Integration {
+        private final String name;
+        private final Set<String> connectionIds;
+
+        Integration(String name, Set<String> connectionIds) {
+            this.name = name;
+            this.connectionIds = connectionIds;
+        }
+    }
+
+    private final Map<String, Integration> integrations = new HashMap<>();
+    /*
+     * changes received while loading by integration id, a null value is a removal
+     */
+    private Map<String, Integration> pending;
+    private long loadGeneration;
+    private volatile Map<String, List<String>> byConnection;
+
+    /**
+     * @return true if the index has been loaded and not since invalidated
+     */
+    boolean isLoaded() {
+        return byConnection != null;
+    }
+
+    /**
+     * @return true if the index is loaded or being loaded, and so needs changes
+     */
+    synchronized boolean isTracking() {
+        return byConnection != null || pending != null;
+    }
+
+    /**
+     * @param connectionId
+     * @return the names of the integrations using the connection, never null
+     */
+    List<String> getIntegrations(String connectionId) {
+        Map<String, List<String>> current = byConnection;
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        return current.getOrDefault(connectionId, Collections.emptyList());
+    }
+
+    /**
+     * Start tracking changes for a full load, which should be called
+     * prior to fetching the integrations
+     * @return the generation to pass to {@link #load(long, Map)}
+     */
+    synchronized long beginLoad() {
+        if (pending == null) {
+            pending = new HashMap<>();
+        }
+        return loadGeneration;
+    }
+
+    /**
+     * Replace the index contents with the integrations and any changes
+     * received since {@link #beginLoad()}
+     * @param generation from {@link #beginLoad()}
+     * @param items the integrations by id, see {@link #readList(JsonParser)}
+     * @return false if the index was invalidated or loaded since {@link #beginLoad()}
+     */
+    synchronized boolean load(long generation, Map<String, Integration> items) {
+        if (generation != loadGeneration || pending == null) {
+            return false;
+        }
+        integrations.clear();
+        integrations.putAll(items);
+        for (Map.Entry<String, Integration> entry : pending.entrySet()) {
+            if (entry.getValue() == null) {
+                integrations.remove(entry.getKey());
+            } else {
+                integrations.put(entry.getKey(), entry.getValue());
+            }
+        }
+        pending = null;
+        loadGeneration++;
+        rebuild();
+        return true;
+    }
+
+    /**
+     * Add or replace a single integration - ignored if the index is not loaded
+     * or being loaded
+     * @param integrationId
+     * @param item the integration, see {@link #read(JsonParser)}
+     */
+    synchronized void update(String integrationId, Integration item) {
+        if (pending != null) {
+            pending.put(integrationId, item);
+            return;
+        }
+        if (!isLoaded()) {
+            return;
+        }
+        integrations.put(integrationId, item);
+        rebuild();
+    }
+
+    /**
+     * Remove a single integration - ignored if the index is not loaded
+     * or being loaded
+     * @param integrationId
+     */
+    synchronized void remove(String integrationId) {
+        if (pending != null) {
+            pending.put(integrationId, null);
+            return;
+        }
+        if (!isLoaded()) {
+            return;
+        }
+        if (integrations.remove(integrationId) != null) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Require a full load before the next use, discarding any load in progress
+     */
+    synchronized void invalidate() {
+        integrations.clear();
+        pending = null;
+        loadGeneration++;
+        byConnection = null;
+    }
+
+    private void rebuild() {
+        Map<String, List<String>> result = new HashMap<>();
+        for (Integration integration : integrations.values()) {
+            for (String connectionId : integration.connectionIds) {
+                result.computeIfAbsent(connectionId, k -> new ArrayList<>(2)).add(integration.name);
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : result.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        byConnection = Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Incrementally read the integrations list json
+     * @return the integrations by id
+     */
+    static Map<String, Integration> readList(JsonParser parser) throws IOException {
+        Map<String, Integration> result = new HashMap<>();
+        SyndesisJson.forEachItem(parser, p -> {
+            String[] id = new String[1];
+            Integration integration = read(p, id);
+            result.put(id[0] != null ? id[0] : integration.name, integration);
+        });
+        return result;
+    }
+
+    /**
+     * Incrementally read a single integration json
+     */
+    static Integration read(JsonParser parser) throws IOException {
+        return read(parser, new String[1]);
+    }
+
+    private static Integration read(JsonParser parser, String[] id) throws IOException {
+        SyndesisJson.startObject(parser);
+        String integrationName = null;
+        Set<String> connectionIds = new LinkedHashSet<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("id".equals(field)) { //$NON-NLS-1$
+                id[0] = SyndesisJson.scalarText(parser, token);
+            } else if ("name".equals(field)) { //$NON-NLS-1$
+                integrationName = SyndesisJson.scalarText(parser, token);
+            } else if ("flows".equals(field) && token == JsonToken.START_ARRAY) { //$NON-NLS-1$
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    readFlow(parser, connectionIds);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new Integration(integrationName, connectionIds);
+    }
+
+    private static void readFlow(JsonParser parser, Set<String> connectionIds) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (!"steps".equals(field) || token != JsonToken.START_ARRAY) { //$NON-NLS-1$
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String stepField = parser.getCurrentName();
+                    token = parser.nextToken();
+                    if (!"connection".equals(stepField) || token != JsonToken.START_OBJECT) { //$NON-NLS-1$
+                        parser.skipChildren();
+                        continue;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String connectionField = parser.getCurrentName();
+                        token = parser.nextToken();
+                        if ("id".equals(connectionField) && token.isScalarValue()) { //$NON-NLS-1$
+                            connectionIds.add(parser.getText());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ReplicationController;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.openshift.api.model.Build;
+import io.fabric8.openshift.api.model.DeploymentConfig;
+import io.fabric8.openshift.api.model.Route;
+import io.fabric8.openshift.client.OpenShiftClient;
+
+/**
+ * A watch based cache of the Builds, DeploymentConfigs, ReplicationControllers and
+ * Routes labeled by application.
+ * <br>
+ * Once synced, status checks and build monitoring can read from the cache rather than
+ * the API server, and the listener is notified with the application name of
+ * each changed resource.  If a watch is closed with an error, the cache is
+ * no longer synced until the resources are listed and watched again.
+ */
+class OpenShiftResourceCache implements VdbResources, AutoCloseable {
+
+    private static final Log LOGGER = LogFactory.getLog(OpenShiftResourceCache.class);
+
+    static final String APPLICATION = "application"; //$NON-NLS-1$
+
+    private static final Comparator<HasMetadata> BY_NAME = Comparator.comparing(r -> r.getMetadata().getName());
+
+    /**
+     * The resources of a single type by name and by application, kept current by a watch
+     */
+    @SuppressWarnings("rawtypes") //the fabric8 list types do not specify the item type
+    private class ResourceIndex<T extends HasMetadata> implements Watcher<T> {
+        private final FilterWatchListDeletable<T, ? extends KubernetesResourceList, Boolean, Watch, Watcher<T>> operation;
+        private final Map<String, T> resources = new ConcurrentHashMap<>();
+        /*
+         * the per application maps are replaced rather than modified, so that
+         * they may be read without locking
+         */
+        private final Map<String, Map<String, T>> byApplication = new ConcurrentHashMap<>();
+        private volatile Watch watch;
+
+        ResourceIndex(FilterWatchListDeletable<T, ? extends KubernetesResourceList, Boolean, Watch, Watcher<T>> operation) {
+            this.operation = operation;
+        }
+
+        void start() {
+            KubernetesResourceList list = operation.list();
+            @SuppressWarnings("unchecked")
+            List<T> items = list.getItems();
+            Set<String> names = new HashSet<>();
+            for (T resource : items) {
+                String name = resource.getMetadata().getName();
+                names.add(name);
+                T old = put(resource);
+                if (old == null || !Objects.equals(old.getMetadata().getResourceVersion(), resource.getMetadata().getResourceVersion())) {
+                    changed(resource);
+                }
+            }
+            for (String name : new ArrayList<>(resources.keySet())) {
+                if (!names.contains(name)) {
+                    T old = remove(name);
+                    if (old != null) {
+                        changed(old);
+                    }
+                }
+            }
+            this.watch = operation.withResourceVersion(list.getMetadata().getResourceVersion()).watch(this);
+        }
+
+        void stop() {
+            Watch w = this.watch;
+            this.watch = null;
+            if (w != null) {
+                w.close();
+            }
+        }
+
+        @Override
+        public void eventReceived(Action action, T resource) {
+            String name = resource.getMetadata().getName();
+            switch (action) {
+            case ADDED:
+            case MODIFIED:
+                put(resource);
+                break;
+            case DELETED:
+                remove(name);
+                break;
+            default:
+                return;
+            }
+            changed(resource);
+        }
+
+        @Override
+        public void onClose(KubernetesClientException cause) {
+            if (cause != null && watch != null) {
+                LOGGER.debug("Watch closed, resyncing: " + cause.getMessage()); //$NON-NLS-1$
+                resync();
+            }
+        }
+
+        private T put(T resource) {
+            String name = resource.getMetadata().getName();
+            String application = getApplication(resource);
+            T old = resources.put(name, resource);
+            if (old != null) {
+                String oldApplication = getApplication(old);
+                if (!Objects.equals(application, oldApplication)) {
+                    updateApplication(oldApplication, name, null);
+                }
+            }
+            updateApplication(application, name, resource);
+            return old;
+        }
+
+        private T remove(String name) {
+            T old = resources.remove(name);
+            if (old != null) {
+                updateApplication(getApplication(old), name, null);
+            }
+            return old;
+        }
+
+        private void updateApplication(String application, String name, T resource) {
+            if (application == null) {
+                return;
+            }
+            byApplication.compute(application, (key, existing) -> {
+                Map<String, T> updated = existing == null ? new HashMap<>(4) : new HashMap<>(existing);
+                if (resource == null) {
+                    updated.remove(name);
+                } else {
+                    updated.put(name, resource);
+                }
+                return updated.isEmpty() ? null : updated;
+            });
+        }
+
+        List<T> getByApplication(String application) {
+            Map<String, T> result = byApplication.get(application);
+            if (result == null) {
+                return Collections.emptyList();
+            }
+            List<T> sorted = new ArrayList<>(result.values());
+            sorted.sort(BY_NAME);
+            return sorted;
+        }
+    }
+
+    private final ResourceIndex<Build> builds;
+    private final ResourceIndex<DeploymentConfig> deploymentConfigs;
+    private final ResourceIndex<ReplicationController> replicationControllers;
+    private final ResourceIndex<Route> routes;
+    private final List<ResourceIndex<?>> indexes;
+    private final Consumer<String> listener;
+    private final AtomicLong generation = new AtomicLong();
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "OpenShift Resource Cache"); //$NON-NLS-1$
+        t.setDaemon(true);
+        return t;
+    });
+    private final long retryMillis;
+    private volatile boolean synced;
+    private volatile boolean closed;
+
+    /**
+     * @param client
+     * @param namespace
+     * @param listener notified with the application name of changed resources
+     * @param retryMillis the delay before listing again after a failure
+     */
+    OpenShiftResourceCache(OpenShiftClient client, String namespace, Consumer<String> listener, long retryMillis) {
+        this(client.builds().inNamespace(namespace).withLabel(APPLICATION),
+                client.deploymentConfigs().inNamespace(namespace).withLabel(APPLICATION),
+                client.replicationControllers().inNamespace(namespace).withLabel(APPLICATION),
+                client.routes().inNamespace(namespace).withLabel(APPLICATION),
+                listener, retryMillis);
+    }
+
+    @SuppressWarnings("rawtypes")
+    OpenShiftResourceCache(FilterWatchListDeletable<Build, ? extends KubernetesResourceList, Boolean, Watch, Watcher<Build>> builds,
+            FilterWatchListDeletable<DeploymentConfig, ? extends KubernetesResourceList, Boolean, Watch, Watcher<DeploymentConfig>> deploymentConfigs,
+            FilterWatchListDeletable<ReplicationController, ? extends KubernetesResourceList, Boolean, Watch, Watcher<ReplicationController>> replicationControllers,
+            FilterWatchListDeletable<Route, ? extends KubernetesResourceList, Boolean, Watch, Watcher<Route>> routes,
+            Consumer<String> listener, long retryMillis) {
+        this.builds = new ResourceIndex<>(builds);
+        this.deploymentConfigs = new ResourceIndex<>(deploymentConfigs);
+        this.replicationControllers = new ResourceIndex<>(replicationControllers);
+        this.routes = new ResourceIndex<>(routes);
+        this.indexes = Collections.unmodifiableList(Arrays.asList(this.builds, this.deploymentConfigs, this.replicationControllers, this.routes));
+        this.listener = listener;
+        this.retryMillis = retryMillis;
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Asynchronously list and watch the resources
+     */
+    void start() {
+        executor.execute(this::sync);
+    }
+
+    private void resync() {
+        if (closed) {
+            return;
+        }
+        synced = false;
+        executor.execute(this::sync);
+    }
+
+    private synchronized void sync() {
+        if (closed || synced) {
+            return;
+        }
+        for (ResourceIndex<?> index : indexes) {
+            index.stop();
+        }
+        try {
+            for (ResourceIndex<?> index : indexes) {
+                index.start();
+            }
+            synced = true;
+        } catch (KubernetesClientException e) {
+            LOGGER.debug("Could not watch OpenShift resources, will retry: " + e.getMessage()); //$NON-NLS-1$
+            for (ResourceIndex<?> index : indexes) {
+                index.stop();
+            }
+            executor.schedule(this::sync, retryMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return true if the cache reflects the current state of the resources
+     */
+    boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * @return a value that changes each time a resource changes
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    private void changed(HasMetadata resource) {
+        generation.incrementAndGet();
+        String application = getApplication(resource);
+        if (application != null) {
+            try {
+                listener.accept(application);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not process a change to " + application, e); //$NON-NLS-1$
+            }
+        }
+    }
+
+    private static String getApplication(HasMetadata resource) {
+        Map<String, String> labels = resource.getMetadata().getLabels();
+        return labels == null ? null : labels.get(APPLICATION);
+    }
+
+    Build getBuild(String name) {
+        return builds.resources.get(name);
+    }
+
+    @Override
+    public List<Build> getBuilds(String openShiftName) {
+        return builds.getByApplication(openShiftName);
+    }
+
+    @Override
+    public DeploymentConfig getDeploymentConfig(String openShiftName) {
+        return deploymentConfigs.resources.get(openShiftName);
+    }
+
+    @Override
+    public List<ReplicationController> getReplicationControllers(String openShiftName) {
+        return replicationControllers.getByApplication(openShiftName);
+    }
+
+    @Override
+    public List<Route> getRoutes() {
+        return new ArrayList<>(routes.resources.values());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synced = false;
+        executor.shutdownNow();
+        for (ResourceIndex<?> index : indexes) {
+            index.stop();
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.core.util.ObjectConverterUtil;
+
+/**
+ * The s2i build templates and resources, loaded from the classpath and compiled once.
+ * <br>
+ * A compiled template is a list of literal segments split by placeholders, so rendering
+ * is a single pass that appends each segment and the value of each placeholder.
+ * Data source builders use mustache style {{name}} placeholders, and the pom uses
+ * &lt;!--name--&gt; comments so that the template remains valid xml.
+ */
+final class S2ITemplates {
+
+    static final String JDBC = "s2i/Jdbc.mustache"; //$NON-NLS-1$
+    static final String MONGODB = "s2i/MongoDB.mustache"; //$NON-NLS-1$
+    static final String SALESFORCE = "s2i/Salesforce.mustache"; //$NON-NLS-1$
+    static final String POM = "s2i/template-pom.xml"; //$NON-NLS-1$
+    static final String APPLICATION_JAVA = "s2i/Application.java"; //$NON-NLS-1$
+    static final String APPLICATION_PROPERTIES = "s2i/application.properties"; //$NON-NLS-1$
+
+    /**
+     * A template compiled into literal segments and placeholder names.
+     */
+    static final class Template {
+        private final String[] literals;
+        private final String[] names;
+        private final String[] markers;
+        private final int literalLength;
+
+        private Template(List<String> literals, List<String> names, List<String> markers) {
+            this.literals = literals.toArray(new String[literals.size()]);
+            this.names = names.toArray(new String[names.size()]);
+            this.markers = markers.toArray(new String[markers.size()]);
+            int length = 0;
+            for (String literal : this.literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        /**
+         * Render the template.  A placeholder without a value is left as is.
+         */
+        String render(Map<String, ? extends CharSequence> values) {
+            CharSequence[] resolved = new CharSequence[names.length];
+            int length = literalLength;
+            for (int i = 0; i < names.length; i++) {
+                CharSequence value = values.get(names[i]);
+                resolved[i] = value == null ? markers[i] : value;
+                length += resolved[i].length();
+            }
+            StringBuilder result = new StringBuilder(length);
+            for (int i = 0; i < names.length; i++) {
+                result.append(literals[i]).append(resolved[i]);
+            }
+            return result.append(literals[names.length]).toString();
+        }
+    }
+
+    private final Map<String, Template> templates = new HashMap<>();
+    private final Map<String, byte[]> resources = new HashMap<>();
+
+    S2ITemplates() throws IOException {
+        ClassLoader loader = S2ITemplates.class.getClassLoader();
+        for (String name : new String[] {JDBC, MONGODB, SALESFORCE}) {
+            templates.put(name, compile(loadString(loader, name), "{{", "}}")); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        templates.put(POM, compile(loadString(loader, POM), "<!--", "-->")); //$NON-NLS-1$ //$NON-NLS-2$
+        for (String name : new String[] {APPLICATION_JAVA, APPLICATION_PROPERTIES}) {
+            try (InputStream is = open(loader, name)) {
+                resources.put(name, ObjectConverterUtil.convertToByteArray(is));
+            }
+        }
+    }
+
+    /**
+     * @return the compiled template, never null
+     */
+    Template getTemplate(String name) {
+        Template result = templates.get(name);
+        if (result == null) {
+            throw new IllegalArgumentException("Unknown template " + name); //$NON-NLS-1$
+        }
+        return result;
+    }
+
+    /**
+     * @return the resource bytes, which must not be modified
+     */
+    byte[] getResource(String name) {
+        byte[] result = resources.get(name);
+        if (result == null) {
+            throw new IllegalArgumentException("Unknown resource " + name); //$NON-NLS-1$
+        }
+        return result;
+    }
+
+    String render(String name, Map<String, ? extends CharSequence> values) {
+        return getTemplate(name).render(values);
+    }
+
+    /**
+     * Compile the text into a template.  Only a name made of letters, digits, '.', '_' or '-'
+     * between the delimiters is a placeholder, so that other comments or braces are kept as literals.
+     */
+    static Template compile(String text, String open, String close) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<String> markers = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (true) {
+            int start = text.indexOf(open, pos);
+            int end = start < 0 ? -1 : text.indexOf(close, start + open.length());
+            if (end < 0) {
+                literal.append(text, pos, text.length());
+                break;
+            }
+            String name = text.substring(start + open.length(), end);
+            if (isName(name)) {
+                literal.append(text, pos, start);
+                literals.add(literal.toString());
+                literal.setLength(0);
+                names.add(name);
+                markers.add(text.substring(start, end + close.length()));
+                pos = end + close.length();
+            } else {
+                literal.append(text, pos, start + open.length());
+                pos = start + open.length();
+            }
+        }
+        literals.add(literal.toString());
+        return new Template(literals, names, markers);
+    }
+
+    private static boolean isName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '.' && c != '_' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String loadString(ClassLoader loader, String name) throws IOException {
+        try (InputStream is = open(loader, name)) {
+            return ObjectConverterUtil.convertToString(new InputStreamReader(is, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static InputStream open(ClassLoader loader, String name) throws IOException {
+        InputStream is = loader.getResourceAsStream(name);
+        if (is == null) {
+            throw new IOException("Missing s2i resource " + name); //$NON-NLS-1$
+        }
+        return is;
+    }
+
+}
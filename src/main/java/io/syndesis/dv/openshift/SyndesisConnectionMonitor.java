@@ -18,6 +18,8 @@
 package io.syndesis.dv.openshift;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -31,6 +33,7 @@ import org.springframework.stereotype.Component;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.syndesis.dv.KException;
+import io.syndesis.dv.server.DvConfigurationProperties;
 import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -48,6 +51,11 @@ public class SyndesisConnectionMonitor {
     private ObjectMapper mapper = new ObjectMapper();
     private SyndesisConnectionSynchronizer connectionSynchronizer;
     private ScheduledThreadPoolExecutor executor;
+    private long connectionEventWindow;
+    /**
+     * Connection events waiting for the end of their window, by connection id
+     */
+    private Map<String, EventMsg> pendingConnectionEvents = new HashMap<>();
 
     static class Message {
         private String event;
@@ -102,9 +110,11 @@ public class SyndesisConnectionMonitor {
         }
     }
 
-    public SyndesisConnectionMonitor(@Autowired SyndesisConnectionSynchronizer scs, @Autowired ScheduledThreadPoolExecutor connectionExecutor) {
+    public SyndesisConnectionMonitor(@Autowired SyndesisConnectionSynchronizer scs, @Autowired ScheduledThreadPoolExecutor connectionExecutor,
+            @Autowired DvConfigurationProperties config) {
         this.connectionSynchronizer = scs;
         this.executor = connectionExecutor;
+        this.connectionEventWindow = config.getConnectionEventWindow();
     }
 
     static Request.Builder buildRequest() {
@@ -193,11 +203,14 @@ public class SyndesisConnectionMonitor {
                 Message msg = mapper.readValue(text.getBytes(), Message.class);
                 if (msg.getEvent().contentEquals("message") && msg.getData().contentEquals("connected")) {
                     connected = true;
+                    connectionSynchronizer.resetIntegrationUsage();
                     connectionSynchronizer.synchronizeConnections(false);
                 } else if (msg.getEvent().contentEquals("change-event")) {
                     EventMsg event = mapper.readValue(msg.getData().getBytes(), EventMsg.class);
                     if (event.getKind().contentEquals("connection")) {
-                        connectionSynchronizer.handleConnectionEvent(event);
+                        coalesceConnectionEvent(event);
+                    } else if (event.getKind().contentEquals("integration")) {
+                        connectionSynchronizer.handleIntegrationEvent(event);
                     } else {
                         LOGGER.debug("Message discarded " + text);
                     }
@@ -208,6 +221,35 @@ public class SyndesisConnectionMonitor {
         });
     }
 
+    /**
+     * Hold the connection event for the event window, combining it with any other
+     * event for the same connection, so that only the last action is applied
+     */
+    void coalesceConnectionEvent(EventMsg event) {
+        synchronized (pendingConnectionEvents) {
+            EventMsg pending = pendingConnectionEvents.put(event.getId(), event);
+            if (pending != null) {
+                if (pending.getAction() == EventMsg.Type.created && event.getAction() == EventMsg.Type.updated) {
+                    //still new to us
+                    event.setAction(EventMsg.Type.created);
+                }
+                LOGGER.debug("Combined connection event for " + event.getId());
+                return;
+            }
+        }
+        executor.schedule(() -> {
+            EventMsg toHandle = null;
+            synchronized (pendingConnectionEvents) {
+                toHandle = pendingConnectionEvents.remove(event.getId());
+            }
+            try {
+                connectionSynchronizer.handleConnectionEvent(toHandle);
+            } catch (Exception e) {
+                LOGGER.error("Failed to process the connection event for " + toHandle.getId(), e);
+            }
+        }, connectionEventWindow, TimeUnit.MILLISECONDS);
+    }
+
     public boolean isConnected() {
         return webSocket != null && connected;
     }
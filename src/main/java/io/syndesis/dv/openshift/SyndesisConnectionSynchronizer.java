@@ -18,9 +18,17 @@
 package io.syndesis.dv.openshift;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +39,7 @@ import io.syndesis.dv.RepositoryManager;
 import io.syndesis.dv.datasources.DefaultSyndesisDataSource;
 import io.syndesis.dv.metadata.TeiidDataSource;
 import io.syndesis.dv.openshift.SyndesisConnectionMonitor.EventMsg;
+import io.syndesis.dv.server.DvConfigurationProperties;
 import io.syndesis.dv.server.endpoint.MetadataService;
 import io.syndesis.dv.server.endpoint.MetadataService.SourceDeploymentMode;
 
@@ -46,11 +55,25 @@ public class SyndesisConnectionSynchronizer {
     private MetadataService metadataService;
     private RepositoryManager repositoryManager;
 
+    /**
+     * Connections are independent, so they are added in parallel up to the configured limit
+     */
+    private ThreadPoolExecutor syncExecutor;
+
     public SyndesisConnectionSynchronizer(@Autowired TeiidOpenShiftClient toc,
-            @Autowired MetadataService metadataService, @Autowired RepositoryManager repositoryManager) {
+            @Autowired MetadataService metadataService, @Autowired RepositoryManager repositoryManager,
+            @Autowired DvConfigurationProperties config) {
         this.openshiftClient = toc;
         this.metadataService = metadataService;
         this.repositoryManager = repositoryManager;
+        this.syncExecutor = new ThreadPoolExecutor(config.getSyncThreads(), config.getSyncThreads(),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        this.syncExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.syncExecutor.shutdownNow();
     }
 
     /*
@@ -74,6 +97,21 @@ public class SyndesisConnectionSynchronizer {
         }
     }
 
+    /*
+     * This method keeps the integration usage of connections current
+     */
+    public void handleIntegrationEvent(final EventMsg event) throws KException {
+        LOGGER.debug("Handling integration event with Event ID = " + event.getId());
+        this.openshiftClient.handleIntegrationEvent(event);
+    }
+
+    /*
+     * Events may have been missed, so the integration usage must be reloaded
+     */
+    public void resetIntegrationUsage() {
+        this.openshiftClient.invalidateIntegrationUsage();
+    }
+
     /*
      * This method checks each applicable syndesis connection and updates all
      * associated syndesisSource vdbs and schema
@@ -90,9 +128,22 @@ public class SyndesisConnectionSynchronizer {
         Map<String, ? extends TeiidDataSource> existing = openshiftClient
                 .getDataSources().stream().collect(Collectors.toMap(TeiidDataSource::getSyndesisId, ds->{return ds;}));
 
+        Map<Future<?>, DefaultSyndesisDataSource> futures = new LinkedHashMap<>();
         for (DefaultSyndesisDataSource sds : dataSources) {
             existing.remove(sds.getSyndesisConnectionId());
-            addConnection(sds, update);
+            futures.put(syncExecutor.submit(() -> addConnection(sds, update)), sds);
+        }
+
+        //wait for all, so that a synchronization completes before the next can start
+        for (Map.Entry<Future<?>, DefaultSyndesisDataSource> entry : futures.entrySet()) {
+            try {
+                entry.getKey().get();
+            } catch (ExecutionException e) {
+                LOGGER.warn("Error synchronizing connection " + entry.getValue().getSyndesisName(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new KException(e);
+            }
         }
 
         for (TeiidDataSource removed : existing.values()) {
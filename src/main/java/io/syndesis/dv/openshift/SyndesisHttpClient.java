@@ -0,0 +1,244 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A shared, pooled client for the Syndesis REST api.
+ * <p>
+ * Responses are handed to a {@link JsonHandler} as a {@link JsonParser} over
+ * the response stream, rather than being buffered, and the response is always
+ * closed afterwards so that the connection is returned to the pool.
+ */
+@Component
+@ManagedResource(objectName = "io.syndesis.dv:type=SyndesisHttpClient", description = "Pooled Syndesis REST connections")
+public class SyndesisHttpClient implements AutoCloseable {
+
+    /**
+     * Processes a json response
+     */
+    @FunctionalInterface
+    public interface JsonHandler<T> {
+        T handle(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * Reads the whole response as a tree
+     */
+    public static final JsonHandler<JsonNode> TREE = parser -> parser.readValueAsTree();
+
+    @Value("${syndesis.http.maxConnections:20}")
+    private int maxConnections = 20;
+
+    @Value("${syndesis.http.maxConnectionsPerRoute:10}")
+    private int maxConnectionsPerRoute = 10;
+
+    @Value("${syndesis.http.connectTimeout:5000}")
+    private int connectTimeout = 5000;
+
+    @Value("${syndesis.http.socketTimeout:60000}")
+    private int socketTimeout = 60000;
+
+    @Value("${syndesis.http.keepAlive:30000}")
+    private long keepAlive = 30000;
+
+    private final JsonFactory jsonFactory = new ObjectMapper().getFactory();
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient client;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private synchronized CloseableHttpClient getClient() throws IOException {
+        if (this.client == null) {
+            SSLContext sslContext;
+            try {
+                // no verification of host for now.
+                sslContext = new SSLContextBuilder().loadTrustMaterial(null, (certificate, authType) -> true).build();
+            } catch (GeneralSecurityException e) {
+                throw new IOException(e);
+            }
+            Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory()) //$NON-NLS-1$
+                    .register("https", new SSLConnectionSocketFactory(sslContext, NoopHostnameVerifier.INSTANCE)) //$NON-NLS-1$
+                    .build();
+            this.connectionManager = new PoolingHttpClientConnectionManager(registry);
+            this.connectionManager.setMaxTotal(maxConnections);
+            this.connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            this.connectionManager.setValidateAfterInactivity(2000);
+
+            RequestConfig requestConfig = RequestConfig.custom()
+                    .setConnectTimeout(connectTimeout)
+                    .setConnectionRequestTimeout(connectTimeout)
+                    .setSocketTimeout(socketTimeout)
+                    .build();
+
+            this.client = HttpClients.custom()
+                    .setConnectionManager(this.connectionManager)
+                    .setDefaultRequestConfig(requestConfig)
+                    .setKeepAliveStrategy((response, context) -> {
+                        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                        return duration < 0 ? keepAlive : Math.min(duration, keepAlive);
+                    })
+                    .evictExpiredConnections()
+                    .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+                    .build();
+        }
+        return this.client;
+    }
+
+    private static void addDefaultHeaders(HttpRequestBase request) {
+        request.addHeader("Accept", "application/json");
+        request.addHeader("X-Forwarded-User", "user");
+        request.addHeader("SYNDESIS-XSRF-TOKEN", "awesome");
+        request.addHeader("X-Forwarded-Access-Token", "supersecret");
+        request.addHeader("Content-Type", "application/json");
+    }
+
+    public <T> T get(String url, JsonHandler<T> handler) throws IOException {
+        return execute(new HttpGet(url), handler);
+    }
+
+    public <T> T post(String url, String payload, JsonHandler<T> handler) throws IOException {
+        HttpPost request = new HttpPost(url);
+        request.setEntity(new StringEntity(payload, ContentType.APPLICATION_JSON));
+        return execute(request, handler);
+    }
+
+    public void delete(String url) throws IOException {
+        execute(new HttpDelete(url), null);
+    }
+
+    /**
+     * Execute the request and process the response, a status of 300 or greater
+     * results in a {@link HttpResponseException}
+     */
+    private <T> T execute(HttpRequestBase request, JsonHandler<T> handler) throws IOException {
+        addDefaultHeaders(request);
+        requests.incrementAndGet();
+        try (CloseableHttpResponse response = getClient().execute(request)) {
+            StatusLine statusLine = response.getStatusLine();
+            HttpEntity entity = response.getEntity();
+            if (statusLine.getStatusCode() >= 300) {
+                EntityUtils.consume(entity);
+                throw new HttpResponseException(statusLine.getStatusCode(), statusLine.getReasonPhrase());
+            }
+            if (handler == null || entity == null) {
+                EntityUtils.consume(entity);
+                return null;
+            }
+            try (InputStream is = entity.getContent();
+                    JsonParser parser = jsonFactory.createParser(is)) {
+                return handler.handle(parser);
+            }
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            throw e;
+        }
+    }
+
+    private synchronized PoolStats getStats() {
+        if (this.connectionManager == null) {
+            return new PoolStats(0, 0, 0, maxConnections);
+        }
+        return this.connectionManager.getTotalStats();
+    }
+
+    @ManagedAttribute(description = "Connections currently in use")
+    public int getLeasedConnections() {
+        return getStats().getLeased();
+    }
+
+    @ManagedAttribute(description = "Idle pooled connections")
+    public int getAvailableConnections() {
+        return getStats().getAvailable();
+    }
+
+    @ManagedAttribute(description = "Requests waiting for a connection")
+    public int getPendingRequests() {
+        return getStats().getPending();
+    }
+
+    @ManagedAttribute(description = "Maximum number of connections")
+    public int getMaxConnections() {
+        return getStats().getMax();
+    }
+
+    @ManagedAttribute(description = "Total requests")
+    public long getRequests() {
+        return requests.get();
+    }
+
+    @ManagedAttribute(description = "Requests that failed with an error or error status")
+    public long getFailures() {
+        return failures.get();
+    }
+
+    @PreDestroy
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.client != null) {
+            this.client.close();
+            this.client = null;
+            this.connectionManager = null;
+        }
+    }
+
+}
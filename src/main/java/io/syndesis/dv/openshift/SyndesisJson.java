@@ -0,0 +1,135 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Incremental readers for Syndesis REST responses.
+ * <br>
+ * Only the values needed are retained, everything else is skipped as it is
+ * read so that memory use does not grow with the size of the response.
+ */
+final class SyndesisJson {
+
+    interface ItemHandler {
+        /**
+         * Read a single item, the parser is positioned at the item START_OBJECT
+         * and must be left at the matching END_OBJECT
+         */
+        void item(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * The values of a Syndesis connection used to build a data source
+     */
+    static class Connection {
+        String id;
+        String name;
+        String connectorId;
+        Map<String, String> configuredProperties = new HashMap<>();
+    }
+
+    private SyndesisJson() {
+    }
+
+    /**
+     * Call the handler for each object of the top level items array
+     */
+    static void forEachItem(JsonParser parser, ItemHandler handler) throws IOException {
+        startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("items".equals(field) && token == JsonToken.START_ARRAY) { //$NON-NLS-1$
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    handler.item(parser);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Read a connection object
+     * @param parser positioned before or at the START_OBJECT
+     */
+    static Connection readConnection(JsonParser parser) throws IOException {
+        startObject(parser);
+        Connection connection = new Connection();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+            case "id": //$NON-NLS-1$
+                connection.id = scalarText(parser, token);
+                break;
+            case "name": //$NON-NLS-1$
+                connection.name = scalarText(parser, token);
+                break;
+            case "connectorId": //$NON-NLS-1$
+                connection.connectorId = scalarText(parser, token);
+                break;
+            case "configuredProperties": //$NON-NLS-1$
+                if (token == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String key = parser.getCurrentName();
+                        connection.configuredProperties.put(key, scalarText(parser, parser.nextToken()));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+                break;
+            default:
+                parser.skipChildren();
+                break;
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * @return the text of a scalar value, or the empty string for an object or array
+     * which is skipped - consistent with JsonNode.asText
+     */
+    static String scalarText(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return ""; //$NON-NLS-1$
+    }
+
+    static void startObject(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a json object"); //$NON-NLS-1$
+        }
+    }
+
+}
@@ -18,26 +18,21 @@
 package io.syndesis.dv.openshift;
 
 import java.io.*;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
 import javax.persistence.PersistenceException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.jboss.shrinkwrap.api.GenericArchive;
-import org.jboss.shrinkwrap.api.ShrinkWrap;
-import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
-import org.jboss.shrinkwrap.api.asset.StringAsset;
-import org.jboss.shrinkwrap.api.exporter.TarExporter;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
@@ -49,7 +44,6 @@ import org.teiid.core.util.AccessibleByteArrayOutputStream;
 import org.teiid.core.util.ObjectConverterUtil;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.fabric8.kubernetes.api.KubernetesHelper;
 import io.fabric8.kubernetes.api.builds.Builds;
@@ -120,6 +114,82 @@ public class TeiidOpenShiftClient implements StringConstants {
         return this.openshiftClient;
     }
 
+    /**
+     * Get the watch based resource cache, which is started on first use
+     */
+    private synchronized OpenShiftResourceCache resourceCache() {
+        if (this.resourceCache == null) {
+            this.resourceCache = new OpenShiftResourceCache(openshiftClient(), ApplicationProperties.getNamespace(),
+                    this::resourcesChanged, RESOURCE_CACHE_RETRY_MILLIS);
+            this.resourceCache.start();
+        }
+        return this.resourceCache;
+    }
+
+    /**
+     * Stop the watches of the resource cache, if it was started
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (this.resourceCache != null) {
+            this.resourceCache.close();
+            this.resourceCache = null;
+        }
+    }
+
+    /**
+     * Get the cache if it's synced, otherwise null
+     */
+    private OpenShiftResourceCache syncedResourceCache() {
+        OpenShiftResourceCache cache = resourceCache();
+        if (cache.isSynced()) {
+            return cache;
+        }
+        return null;
+    }
+
+    /**
+     * Resume monitoring of any work waiting for a change to the application resources
+     */
+    private void resourcesChanged(String openShiftName) {
+        BuildStatusRunner runner = this.awaitingEvents.remove(openShiftName);
+        if (runner != null) {
+            workExecutor.execute(runner);
+        }
+    }
+
+    /**
+     * Wait for a resource event rather than polling.  If there has been any
+     * change since the resources were read, resume immediately.  As a safeguard
+     * against missed events the work will also resume after {@link #AWAIT_EVENT_MILLIS}
+     */
+    private void awaitEvent(BuildStatusRunner runner, OpenShiftResourceCache cache, long generation) {
+        String openShiftName = runner.work.getOpenShiftName();
+        this.awaitingEvents.put(openShiftName, runner);
+        if (!cache.isSynced() || cache.getGeneration() != generation) {
+            resume(openShiftName, runner);
+        } else {
+            workExecutor.schedule(() -> resume(openShiftName, runner), AWAIT_EVENT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void resume(String openShiftName, BuildStatusRunner runner) {
+        if (this.awaitingEvents.remove(openShiftName, runner)) {
+            workExecutor.execute(runner);
+        }
+    }
+
+    /**
+     * Schedule the next run of the monitor for the work no sooner than
+     * {@link #MONITOR_INTERVAL_MILLIS} after it was last updated.
+     * Each job has its own timer, so the cadence does not depend upon
+     * the number of concurrent jobs.
+     */
+    private void scheduleMonitor(BuildStatusRunner runner) {
+        long delay = runner.work.getLastUpdated() + MONITOR_INTERVAL_MILLIS - System.currentTimeMillis();
+        workExecutor.schedule(runner, Math.max(0, delay), TimeUnit.MILLISECONDS);
+    }
+
     /**
      * Responsible for sending SUBMITTED work to be configured
      * and for sending completed builds to be deployed.
@@ -134,150 +204,157 @@ public class TeiidOpenShiftClient implements StringConstants {
 
         @Override
         public void run() {
+            Runnable next = null;
             try {
-                activeJobs.put(this.work.getOpenShiftName(), this.work);
-                // introduce some delay..
-                long elapsed = System.currentTimeMillis() - work.getLastUpdated();
-                if (elapsed < 3000) {
-                    try {
-                        Thread.sleep(3000 - elapsed);
-                    } catch (InterruptedException e) {
-                        Thread.interrupted();
-                        return;
-                    }
-                }
-
-                if (BuildStatus.Status.DELETE_SUBMITTED.equals(work.getStatus())) {
-                    work.setLastUpdated();
-                    workExecutor.submit(this); // add at end
-                    return;
-                }
-
-                if (BuildStatus.Status.DELETE_REQUEUE.equals(work.getStatus())) {
-                    // requeue will change state to submitted and
-                    work.setLastUpdated();
-                    deleteVirtualization(work.getDataVirtualizationName());
-                    workExecutor.submit(this); // add at end
-                    return;
-                }
-
-                if (BuildStatus.Status.DELETE_DONE.equals(work.getStatus())) {
-                    removeSyndesisConnection(work.getDataVirtualizationName());
-                    return;
-                }
-
-                if (BuildStatus.Status.FAILED.equals(work.getStatus()) || BuildStatus.Status.CANCELLED.equals(work.getStatus())) {
-                    work.setLastUpdated();
-                    return;
+                next = monitor();
+            } catch (Throwable ex) {
+                //
+                // Does not specify an id so will only be logged in the KLog.
+                //
+                error(null, "Monitor exception", ex);
+            } finally {
+                if (next == null) {
+                    removeInFlight(this.work);
+                } else {
+                    next.run();
                 }
+            }
+        }
 
-                if (BuildStatus.Status.SUBMITTED.equals(work.getStatus())) {
-                    //
-                    // build submitted for configuration. This is done on another
-                    // thread to avoid clogging up the monitor thread.
-                    //
-                    info(work.getOpenShiftName(), "Publishing - Submitted build to be configured");
+        /**
+         * Advance the state of the work
+         * @return how monitoring should continue, or null if the work is complete
+         */
+        private Runnable monitor() throws Exception {
+            if (BuildStatus.Status.DELETE_SUBMITTED.equals(work.getStatus())) {
+                work.setLastUpdated();
+                return () -> scheduleMonitor(this);
+            }
 
-                    configureBuild(work);
+            if (BuildStatus.Status.DELETE_REQUEUE.equals(work.getStatus())) {
+                // requeue will change state to submitted and
+                work.setLastUpdated();
+                deleteVirtualization(work.getDataVirtualizationName());
+                return () -> scheduleMonitor(this);
+            }
 
-                    work.setLastUpdated();
-                    workExecutor.submit(this); // add at end
+            if (BuildStatus.Status.DELETE_DONE.equals(work.getStatus())) {
+                removeSyndesisConnection(work.getDataVirtualizationName());
+                return null;
+            }
 
-                    return;
-                }
+            if (BuildStatus.Status.FAILED.equals(work.getStatus()) || BuildStatus.Status.CANCELLED.equals(work.getStatus())) {
+                work.setLastUpdated();
+                return null;
+            }
 
+            if (BuildStatus.Status.SUBMITTED.equals(work.getStatus())) {
                 //
-                // build is being configured which is done on another thread
-                // so ignore this build for the moment
+                // build submitted for configuration. This is done on another
+                // thread to avoid clogging up the monitor thread.
                 //
-                if (Status.CONFIGURING.equals(work.getStatus())) {
-                    work.setLastUpdated();
-                    workExecutor.submit(this); // add at end
+                info(work.getOpenShiftName(), "Publishing - Submitted build to be configured");
 
-                    debug(work.getOpenShiftName(), "Publishing - Continuing monitoring as configuring");
-                    return;
-                }
+                configureBuild(work);
 
-                boolean shouldReQueue = true;
-                final OpenShiftClient client = openshiftClient();
-                Build build = client.builds().inNamespace(work.getNamespace()).withName(work.getName()).get();
-                if (build == null) {
-                    // build got deleted some how ignore, remove from monitoring..
-                    error(work.getOpenShiftName(), "Publishing - No build available for building");
-                    return;
-                }
+                work.setLastUpdated();
+                return () -> scheduleMonitor(this);
+            }
 
-                String lastStatus = build.getStatus().getPhase();
-                if (Builds.isCompleted(lastStatus)) {
-                    if (! Status.DEPLOYING.equals(work.getStatus())) {
-                        info(work.getOpenShiftName(), "Publishing - Build completed. Preparing to deploy");
-                        work.setStatusMessage("build completed, deployment started");
-                        createSecret(client, work.getNamespace(), work.getOpenShiftName(), work);
-                        DeploymentConfig dc = createDeploymentConfig(client, work);
-                        work.setDeploymentName(dc.getMetadata().getName());
-                        work.setStatus(Status.DEPLOYING);
-                        client.deploymentConfigs().inNamespace(work.getNamespace())
-                                .withName(dc.getMetadata().getName()).deployLatest();
-                    } else {
-                        DeploymentConfig dc = client.deploymentConfigs().inNamespace(work.getNamespace())
+            //
+            // build is being configured which is done on another thread
+            // so ignore this build for the moment
+            //
+            if (Status.CONFIGURING.equals(work.getStatus())) {
+                work.setLastUpdated();
+                debug(work.getOpenShiftName(), "Publishing - Continuing monitoring as configuring");
+                return () -> scheduleMonitor(this);
+            }
+
+            boolean shouldReQueue = true;
+            final OpenShiftClient client = openshiftClient();
+            //when the cache is synced, state transitions are driven by its events rather than polling
+            final OpenShiftResourceCache cache = syncedResourceCache();
+            final long generation = cache == null ? 0 : cache.getGeneration();
+            Build build = cache == null ? null : cache.getBuild(work.getName());
+            if (build == null) {
+                build = client.builds().inNamespace(work.getNamespace()).withName(work.getName()).get();
+            }
+            if (build == null) {
+                // build got deleted some how ignore, remove from monitoring..
+                error(work.getOpenShiftName(), "Publishing - No build available for building");
+                return null;
+            }
+
+            String lastStatus = build.getStatus().getPhase();
+            if (Builds.isCompleted(lastStatus)) {
+                if (! Status.DEPLOYING.equals(work.getStatus())) {
+                    info(work.getOpenShiftName(), "Publishing - Build completed. Preparing to deploy");
+                    work.setStatusMessage("build completed, deployment started");
+                    createSecret(client, work.getNamespace(), work.getOpenShiftName(), work);
+                    DeploymentConfig dc = createDeploymentConfig(client, work);
+                    work.setDeploymentName(dc.getMetadata().getName());
+                    work.setStatus(Status.DEPLOYING);
+                    client.deploymentConfigs().inNamespace(work.getNamespace())
+                            .withName(dc.getMetadata().getName()).deployLatest();
+                } else {
+                    DeploymentConfig dc = cache == null ? null : cache.getDeploymentConfig(work.getDeploymentName());
+                    if (dc == null) {
+                        dc = client.deploymentConfigs().inNamespace(work.getNamespace())
                                 .withName(work.getDeploymentName()).get();
-                        if (isDeploymentInReadyState(dc)) {
-                            // it done now..
-                            info(work.getOpenShiftName(), "Publishing - Deployment completed");
-                            createServices(client, work.getNamespace(), work.getOpenShiftName());
-                            createSyndesisConnection(client, work.getNamespace(), work.getOpenShiftName(), work.getDataVirtualizationName());
-                            work.setStatus(Status.RUNNING);
+                    }
+                    if (isDeploymentInReadyState(dc)) {
+                        // it done now..
+                        info(work.getOpenShiftName(), "Publishing - Deployment completed");
+                        createServices(client, work.getNamespace(), work.getOpenShiftName());
+                        createSyndesisConnection(client, work.getNamespace(), work.getOpenShiftName(), work.getDataVirtualizationName());
+                        work.setStatus(Status.RUNNING);
+                        shouldReQueue = false;
+                    } else {
+                        if (!isDeploymentProgressing(dc)) {
+                            work.setStatus(Status.FAILED);
+                            info(work.getOpenShiftName(), "Publishing - Deployment seems to be failed, this could be "
+                                    + "due to vdb failure, rediness check failed. Wait threshold is 2 minutes.");
                             shouldReQueue = false;
+                        }
+                        debug(work.getOpenShiftName(), "Publishing - Deployment not ready");
+                        DeploymentCondition cond = getDeploymentConfigStatus(dc);
+                        if (cond != null) {
+                            debug(work.getOpenShiftName(), "Publishing - Deployment condition: " + cond.getMessage());
+                            work.setStatusMessage(cond.getMessage());
                         } else {
-                            if (!isDeploymentProgressing(dc)) {
-                                work.setStatus(Status.FAILED);
-                                info(work.getOpenShiftName(), "Publishing - Deployment seems to be failed, this could be "
-                                        + "due to vdb failure, rediness check failed. Wait threshold is 2 minutes.");
-                                shouldReQueue = false;
-                            }
-                            debug(work.getOpenShiftName(), "Publishing - Deployment not ready");
-                            DeploymentCondition cond = getDeploymentConfigStatus(dc);
-                            if (cond != null) {
-                                debug(work.getOpenShiftName(), "Publishing - Deployment condition: " + cond.getMessage());
-                                work.setStatusMessage(cond.getMessage());
-                            } else {
-                                work.setStatusMessage("Available condition not found in the Deployment Config");
-                            }
+                            work.setStatusMessage("Available condition not found in the Deployment Config");
                         }
                     }
-                } else if (Builds.isCancelled(lastStatus)) {
-                    info(work.getOpenShiftName(), "Publishing - Build cancelled");
-                    // once failed do not queue the work again.
-                    shouldReQueue = false;
-                    work.setStatus(Status.CANCELLED);
-                    work.setStatusMessage(build.getStatus().getMessage());
-                    debug(work.getOpenShiftName(), "Build cancelled: " + work.getName() + ". Reason "
-                            + build.getStatus().getLogSnippet());
-                } else if (Builds.isFailed(lastStatus)) {
-                    error(work.getOpenShiftName(), "Publishing - Build failed");
-                    // once failed do not queue the work again.
-                    shouldReQueue = false;
-                    work.setStatus(Status.FAILED);
-                    work.setStatusMessage(build.getStatus().getMessage());
-                    error(work.getOpenShiftName(),
-                            "Build failed :" + work.getName() + ". Reason " + build.getStatus().getLogSnippet());
                 }
+            } else if (Builds.isCancelled(lastStatus)) {
+                info(work.getOpenShiftName(), "Publishing - Build cancelled");
+                // once failed do not queue the work again.
+                shouldReQueue = false;
+                work.setStatus(Status.CANCELLED);
+                work.setStatusMessage(build.getStatus().getMessage());
+                debug(work.getOpenShiftName(), "Build cancelled: " + work.getName() + ". Reason "
+                        + build.getStatus().getLogSnippet());
+            } else if (Builds.isFailed(lastStatus)) {
+                error(work.getOpenShiftName(), "Publishing - Build failed");
+                // once failed do not queue the work again.
+                shouldReQueue = false;
+                work.setStatus(Status.FAILED);
+                work.setStatusMessage(build.getStatus().getMessage());
+                error(work.getOpenShiftName(),
+                        "Build failed :" + work.getName() + ". Reason " + build.getStatus().getLogSnippet());
+            }
 
-                work.setLastUpdated();
-                if (shouldReQueue) {
-                    workExecutor.submit(this); // add at end
-                } else {
-                    // Close the log as no longer needed actively
-                    closeLog(work.getOpenShiftName());
+            work.setLastUpdated();
+            if (shouldReQueue) {
+                if (cache != null) {
+                    return () -> awaitEvent(this, cache, generation);
                 }
-            } catch (Throwable ex) {
-                //
-                // Does not specify an id so will only be logged in the KLog.
-                //
-                error(null, "Monitor exception", ex);
-            } finally {
-                activeJobs.remove(this.work.getOpenShiftName());
+                return () -> scheduleMonitor(this);
             }
+            // Close the log as no longer needed actively
+            closeLog(work.getOpenShiftName());
+            return null;
         }
     }
 
@@ -294,31 +371,69 @@ public class TeiidOpenShiftClient implements StringConstants {
     private MetadataInstance metadata;
     private Map<String, DataSourceDefinition> sources = new ConcurrentHashMap<>();
     private Map<String, DefaultSyndesisDataSource> syndesisSources = new ConcurrentHashMap<String, DefaultSyndesisDataSource>();
-    private Map<String, List<String>> integrationsInUse;
-    private long integrationRefreshTime;
+    private final IntegrationUsageIndex integrationUsage = new IntegrationUsageIndex();
+    private final Object integrationUsageLoad = new Object();
+    private static final int MAX_USAGE_LOAD_ATTEMPTS = 3;
+    private final SyndesisHttpClient httpClient;
 
     /**
-     * Fixed pool of up to 3 threads for configuring images ready to be deployed
+     * Pool for configuring images ready to be deployed, sized by the configure threads
+     */
+    private ThreadPoolExecutor configureService;
+    /**
+     * Writes the build contexts streamed by the configure tasks, it is the same size
+     * as the configureService so that a configure task never waits on a writer thread
+     */
+    private ThreadPoolExecutor buildContextService;
+    /**
+     * The size of the pipe between a build context writer and the build upload
+     */
+    private static final int BUILD_CONTEXT_BUFFER_SIZE = 1 << 16;
+    /**
+     * The compiled s2i templates, loaded with the first publish
      */
-    private ThreadPoolExecutor configureService = new ThreadPoolExecutor(3, 3, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    private volatile S2ITemplates templates;
 
     private Map<String, PrintWriter> logBuffers = new ConcurrentHashMap<>();
     private EncryptionComponent encryptionComponent;
     private DvConfigurationProperties config;
 
-    private ThreadPoolExecutor workExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
-    private Map<String, BuildStatus> activeJobs = new ConcurrentHashMap<>();
+    private static final long MONITOR_INTERVAL_MILLIS = 3000;
+    private static final long AWAIT_EVENT_MILLIS = 30000;
+    /**
+     * Runs the publish / delete monitors, each job is rescheduled with its own delay
+     */
+    private ScheduledThreadPoolExecutor workExecutor;
+    /**
+     * All queued, waiting and active jobs keyed by openshift name.  Modifications
+     * are made under a lock so that a consistent snapshot may be taken.
+     */
+    private Map<String, BuildStatus> inFlight = new ConcurrentHashMap<>();
+    /**
+     * Work waiting on a resource change, keyed by openshift name
+     */
+    private Map<String, BuildStatusRunner> awaitingEvents = new ConcurrentHashMap<>();
+    private static final long RESOURCE_CACHE_RETRY_MILLIS = 60000;
+    private OpenShiftResourceCache resourceCache;
     private RepositoryManager repositoryManager;
     private Map<String, String> mavenRepos;
 
     public TeiidOpenShiftClient(MetadataInstance metadata, EncryptionComponent encryptor,
-            DvConfigurationProperties config, RepositoryManager repositoryManager, Map<String, String> mavenRepos) {
+            DvConfigurationProperties config, RepositoryManager repositoryManager, Map<String, String> mavenRepos,
+            SyndesisHttpClient httpClient) {
         this.metadata = metadata;
+        this.httpClient = httpClient;
         this.encryptionComponent = encryptor;
         this.config = config;
         this.repositoryManager = repositoryManager;
+        this.workExecutor = new ScheduledThreadPoolExecutor(Math.max(1, config.getPublishThreads()));
+        this.workExecutor.setKeepAliveTime(60, TimeUnit.SECONDS);
         this.workExecutor.allowCoreThreadTimeOut(true);
+        int configureThreads = Math.max(1, config.getConfigureThreads());
+        this.configureService = new ThreadPoolExecutor(configureThreads, configureThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
         this.configureService.allowCoreThreadTimeOut(true);
+        this.buildContextService = new ThreadPoolExecutor(configureThreads, configureThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        this.buildContextService.allowCoreThreadTimeOut(true);
         this.mavenRepos = mavenRepos;
 
         // data source definitions
@@ -453,9 +568,7 @@ public class TeiidOpenShiftClient implements StringConstants {
                     "  \"description\": \"Connection to "+virtualizationName+" \"\n" +
                     "}";
 
-            InputStream response = SyndesisHttpUtil.executePOST(url, payload);
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response);
+            JsonNode root = httpClient.post(url, payload, SyndesisHttpClient.TREE);
             String id = root.get("id").asText();
 
             this.repositoryManager.runInTransaction(false, () -> {
@@ -475,63 +588,69 @@ public class TeiidOpenShiftClient implements StringConstants {
 
     private List<String> findIntegrationUsedIn(String virtualizationName)
             throws KException {
-        List<String> usedIn = null;
-        // only get the status every minute, looks like syndesis server is rejecting otherwise and also
-        // pushing the pod to restart.
-        if (this.integrationsInUse == null || System.currentTimeMillis() - integrationRefreshTime > 60000) {
-            this.integrationsInUse = findIntegrationByConnectionId();
-            this.integrationRefreshTime = System.currentTimeMillis();
-        }
         DataVirtualization dv = this.repositoryManager.findDataVirtualization(virtualizationName);
-        if (dv != null && dv.getSourceId() != null) {
-            usedIn = this.integrationsInUse.get(dv.getSourceId());
+        return findIntegrationUsedIn(dv);
+    }
+
+    private List<String> findIntegrationUsedIn(DataVirtualization dv)
+            throws KException {
+        if (dv == null || dv.getSourceId() == null) {
+            return Collections.emptyList();
         }
-        return (usedIn == null)?Collections.emptyList():usedIn;
+        return getIntegrationUsage().getIntegrations(dv.getSourceId());
     }
 
-    private Map<String, List<String>> findIntegrationByConnectionId() throws KException {
-        Map<String, List<String>> usedIn = new WeakHashMap<>();
-        try {
-            String url = SYNDESISURL+"/integrations";
-            InputStream response = SyndesisHttpUtil.executeGET(url);
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response);
-            JsonNode items = root.get("items");
-            if (items == null) {
-                return usedIn;
-            }
-            for (JsonNode item: items) {
-                String integrationName = item.get("name").asText();
-                JsonNode flows = item.get("flows");
-                if (flows == null) {
-                    continue;
-                }
-                for (JsonNode flow: flows) {
-                    JsonNode steps = flow.get("steps");
-                    if (steps == null) {
-                        continue;
-                    }
-                    for (JsonNode step: steps) {
-                        JsonNode connection = step.get("connection");
-                        if (connection != null) {
-                            JsonNode id = connection.get("id");
-                            if (id != null) {
-                                String idStr = id.asText();
-                                List<String> integrations = usedIn.get(idStr);
-                                if (integrations == null) {
-                                    integrations = new ArrayList<>();
-                                    usedIn.put(idStr, integrations);
-                                }
-                                integrations.add(integrationName);
-                            }
-                        }
+    /**
+     * Get the integration usage index, performing a full load from syndesis
+     * only if it has not been loaded.  Thereafter it is kept current by
+     * {@link #handleIntegrationEvent(SyndesisConnectionMonitor.EventMsg)}
+     */
+    private IntegrationUsageIndex getIntegrationUsage() throws KException {
+        if (!this.integrationUsage.isLoaded()) {
+            //only one full load at a time, the index itself is not locked while fetching
+            synchronized (this.integrationUsageLoad) {
+                for (int i = 0; i < MAX_USAGE_LOAD_ATTEMPTS && !this.integrationUsage.isLoaded(); i++) {
+                    long generation = this.integrationUsage.beginLoad();
+                    try {
+                        this.integrationUsage.load(generation, httpClient.get(SYNDESISURL+"/integrations", IntegrationUsageIndex::readList));
+                    } catch(IOException e) {
+                        this.integrationUsage.invalidate();
+                        throw handleError(e);
                     }
                 }
             }
-        } catch(IOException e) {
+        }
+        return this.integrationUsage;
+    }
+
+    /**
+     * Update the integration usage from a syndesis integration change event
+     */
+    public void handleIntegrationEvent(SyndesisConnectionMonitor.EventMsg event) throws KException {
+        if (!this.integrationUsage.isTracking()) {
+            return;
+        }
+        if (event.getAction() == SyndesisConnectionMonitor.EventMsg.Type.deleted) {
+            this.integrationUsage.remove(event.getId());
+            return;
+        }
+        IntegrationUsageIndex.Integration integration;
+        try {
+            integration = httpClient.get(SYNDESISURL+"/integrations/"+event.getId(), IntegrationUsageIndex::read);
+        } catch(IOException | RuntimeException e) {
+            //force a full reload
+            this.integrationUsage.invalidate();
             throw handleError(e);
         }
-        return usedIn;
+        this.integrationUsage.update(event.getId(), integration);
+    }
+
+    /**
+     * Require that the integration usage be fully reloaded, such as when
+     * change events may have been missed
+     */
+    public void invalidateIntegrationUsage() {
+        this.integrationUsage.invalidate();
     }
 
     private void removeSyndesisConnection(String virtualizationName) throws KException {
@@ -541,7 +660,7 @@ public class TeiidOpenShiftClient implements StringConstants {
             });
 
             if (dv != null) {
-                SyndesisHttpUtil.executeDELETE(SYNDESISURL + "/connections/" + dv.getSourceId());
+                httpClient.delete(SYNDESISURL + "/connections/" + dv.getSourceId());
                 info(dv.getName(), "Database connection to Virtual Database " + dv.getName()
                     + " deleted with Id = "+ dv.getSourceId());
                 // remove the source id from database
@@ -556,19 +675,20 @@ public class TeiidOpenShiftClient implements StringConstants {
         Set<DefaultSyndesisDataSource> result = new HashSet<>();
         try {
             String url = SYNDESISURL+"/connections";
-            InputStream response = SyndesisHttpUtil.executeGET(url);
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response);
-            for (JsonNode item: root.get("items")) {
-                String connectorType = item.get("connectorId").asText();
-                String name = item.get("name").asText();
+            //read incrementally, retaining only the connection values
+            List<SyndesisJson.Connection> connections = httpClient.get(url, parser -> {
+                List<SyndesisJson.Connection> items = new ArrayList<>();
+                SyndesisJson.forEachItem(parser, p -> items.add(SyndesisJson.readConnection(p)));
+                return items;
+            });
+            for (SyndesisJson.Connection connection : connections) {
                 try {
-                    DefaultSyndesisDataSource ds = buildSyndesisDataSource(name, item, connectorType);
+                    DefaultSyndesisDataSource ds = buildSyndesisDataSource(connection);
                     if (ds != null) {
                         result.add(ds);
                     }
                 } catch (KException e) {
-                    error(name, e.getMessage(), e);
+                    error(connection.name, e.getMessage(), e);
                 }
             }
         } catch (Exception e) {
@@ -583,12 +703,7 @@ public class TeiidOpenShiftClient implements StringConstants {
         if (source == null && checkRemote) {
             try {
                 String url = SYNDESISURL+"/connections/"+dsId;
-                InputStream response = SyndesisHttpUtil.executeGET(url);
-                ObjectMapper mapper = new ObjectMapper();
-                JsonNode root = mapper.readTree(response);
-                String connectorType = root.get("connectorId").asText();
-                String name = root.get("name").asText();
-                source = buildSyndesisDataSource(name, root, connectorType);
+                source = buildSyndesisDataSource(httpClient.get(url, SyndesisJson::readConnection));
             } catch (Exception e) {
                 throw handleError(e);
             }
@@ -609,28 +724,25 @@ public class TeiidOpenShiftClient implements StringConstants {
         }
     }
 
-    private DefaultSyndesisDataSource buildSyndesisDataSource(String syndesisName, JsonNode item, String type)
+    private DefaultSyndesisDataSource buildSyndesisDataSource(SyndesisJson.Connection connection)
             throws KException {
-        Map<String, String> p = new HashMap<>();
-        JsonNode configuredProperties = item.get("configuredProperties");
-        JsonNode connectorIDNode = item.get(ID);
-        if (configuredProperties != null) {
-            configuredProperties.fieldNames()
-                    .forEachRemaining(key -> p.put(key, configuredProperties.get(key).asText()));
-        }
+        Map<String, String> p = connection.configuredProperties;
 
-        DataSourceDefinition def = getSourceDefinitionThatMatches(p, type);
+        DataSourceDefinition def = null;
+        if (connection.connectorId != null) {
+            def = getSourceDefinitionThatMatches(p, connection.connectorId);
+        }
         if (def == null) {
             LOGGER.debug("Not SQL Connection, not supported by Data Virtualization yet.");
             return null;
         }
-        if( connectorIDNode == null ) {
+        if( connection.id == null ) {
             throw new KException("Datasource has no connection ID");
         }
         DefaultSyndesisDataSource dsd = new DefaultSyndesisDataSource();
-        dsd.setId(connectorIDNode.asText());
-        dsd.setSyndesisName(syndesisName);
-        String dsName = findDataSourceNameByEventId(connectorIDNode.asText());
+        dsd.setId(connection.id);
+        dsd.setSyndesisName(connection.name);
+        String dsName = findDataSourceNameByEventId(connection.id);
         dsd.setTeiidName(dsName);
         dsd.setTranslatorName(def.getTranslatorName());
         dsd.setProperties(encryptionComponent.decrypt(p));
@@ -1062,7 +1174,7 @@ public class TeiidOpenShiftClient implements StringConstants {
         work.setLastUpdated();
         work.setPublishConfiguration(publishConfig);
         work.setDataVirtualizationName(publishConfig.getDataVirtualizationName());
-        this.workExecutor.submit(new BuildStatusRunner(work));
+        monitor(work);
         return work;
     }
 
@@ -1082,37 +1194,23 @@ public class TeiidOpenShiftClient implements StringConstants {
                     OpenShiftClient client = openshiftClient();
                     info(openShiftName, "Publishing - Checking for base image");
 
-                    // create build contents as tar file
-                    info(openShiftName, "Publishing - Creating zip archive");
-                    GenericArchive archive = ShrinkWrap.create(GenericArchive.class, "contents.tar");
+                    // create the build contents, which are streamed as a tar file to the build
+                    info(openShiftName, "Publishing - Creating build contents");
                     String pomFile = generatePomXml(vdb, publishConfig.isEnableOData());
 
                     debug(openShiftName, "Publishing - Generated pom file: " + NEW_LINE + pomFile);
-                    archive.add(new StringAsset(pomFile), "pom.xml");
 
                     normalizeDataSourceNames(vdb);
 
                     AccessibleByteArrayOutputStream vdbContents = DefaultMetadataInstance.toBytes(vdb);
-                    archive.add(new ByteArrayAsset(new ByteArrayInputStream(vdbContents.getBuffer(), 0, vdbContents.getCount())), "/src/main/resources/" + vdb.getName() + "-vdb.xml");
-
-                    InputStream configIs = this.getClass().getClassLoader().getResourceAsStream("s2i/application.properties");
-                    archive.add(new ByteArrayAsset(ObjectConverterUtil.convertToByteArray(configIs)),
-                                "/src/main/resources/application.properties");
 
+                    Map<String, String> dataSourceBuilders = new LinkedHashMap<>();
                     for (Model model : vdb.getModels()) {
                         if (model.isSource()) {
-                            buildDataSourceBuilders(model, archive);
+                            dataSourceBuilders.putAll(buildDataSourceBuilders(model));
                         }
                     }
 
-                    InputStream appIs = this.getClass().getClassLoader().getResourceAsStream("s2i/Application.java");
-                    archive.add(new ByteArrayAsset(ObjectConverterUtil.convertToByteArray(appIs)),
-                                "/src/main/java/io/integration/Application.java");
-
-                    info(openShiftName, "Publishing - Converting archive to TarExport");
-                    InputStream buildContents = archive.as(TarExporter.class).exportAsInputStream();
-                    info(openShiftName, "Publishing - Completed creating build contents construction");
-
                     info(openShiftName, "Publishing - Creating image stream");
                     // use the contents to invoke a binary build
                     ImageStream is = createImageStream(client, namespace, openShiftName);
@@ -1121,7 +1219,18 @@ public class TeiidOpenShiftClient implements StringConstants {
                     BuildConfig buildConfig = createBuildConfig(client, namespace, openShiftName, is, publishConfig);
 
                     info(openShiftName, "Publishing - Creating build");
-                    Build build = createBuild(client, namespace, buildConfig, buildContents);
+                    Build build = null;
+                    try (InputStream buildContents = BuildContextWriter.stream(buildContextService, BUILD_CONTEXT_BUFFER_SIZE, writer -> {
+                        writer.addEntry("pom.xml", pomFile);
+                        writer.addEntry("src/main/resources/" + vdb.getName() + "-vdb.xml", vdbContents.getBuffer(), 0, vdbContents.getCount());
+                        addResourceEntry(writer, S2ITemplates.APPLICATION_PROPERTIES, "src/main/resources/application.properties");
+                        for (Map.Entry<String, String> entry : dataSourceBuilders.entrySet()) {
+                            writer.addEntry(entry.getKey(), entry.getValue());
+                        }
+                        addResourceEntry(writer, S2ITemplates.APPLICATION_JAVA, "src/main/java/io/integration/Application.java");
+                    })) {
+                        build = createBuild(client, namespace, buildConfig, buildContents);
+                    }
 
                     String buildName = build.getMetadata().getName();
                     info(openShiftName, "Publishing - Build created: " + buildName);
@@ -1170,50 +1279,52 @@ public class TeiidOpenShiftClient implements StringConstants {
         }
     }
 
-    protected void buildDataSourceBuilders(Model model, GenericArchive archive) throws KException {
+    /**
+     * @return the data source builder classes for the model's sources, keyed by build context path
+     */
+    protected Map<String, String> buildDataSourceBuilders(Model model) throws KException {
+        S2ITemplates s2i = getTemplates();
+        Map<String, String> result = new LinkedHashMap<>();
+        Map<String, String> values = new HashMap<>();
+        values.put("packageName", "io.integration");
         for (String name : model.getSourceNames()) {
-            try {
-                String str = null;
-                String replacement = model.getSourceConnectionJndiName(name);
-                String translatorName = model.getSourceTranslatorName(name);
-                if (translatorName.equals("salesforce")) {
-                    InputStream is = this.getClass().getClassLoader().getResourceAsStream("s2i/Salesforce.mustache");
-                    str = inputStreamToString(is);
-                    str = str.replace("{{packageName}}", "io.integration");
-                    str = str.replace("{{dsName}}", replacement);
-
-                } else if (translatorName.equals("mongodb")) {
-                    InputStream is = this.getClass().getClassLoader().getResourceAsStream("s2i/MongoDB.mustache");
-                    str = inputStreamToString(is);
-                    str = str.replace("{{packageName}}", "io.integration");
-                    str = str.replace("{{dsName}}", replacement);
-
-                } else {
-                    InputStream is = this.getClass().getClassLoader().getResourceAsStream("s2i/Jdbc.mustache");
-                    str = inputStreamToString(is);
-                    str = str.replace("{{packageName}}", "io.integration");
-                    str = str.replace("{{dsName}}", replacement);
-                }
-                archive.add(new ByteArrayAsset(ObjectConverterUtil
-                        .convertToByteArray(new ByteArrayInputStream(str.getBytes("UTF-8")))),
-                        "/src/main/java/io/integration/DataSources" + replacement + ".java");
+            String dsName = model.getSourceConnectionJndiName(name);
+            String translatorName = model.getSourceTranslatorName(name);
+            String template = null;
+            if (translatorName.equals("salesforce")) {
+                template = S2ITemplates.SALESFORCE;
+            } else if (translatorName.equals("mongodb")) {
+                template = S2ITemplates.MONGODB;
+            } else {
+                template = S2ITemplates.JDBC;
+            }
+            values.put("dsName", dsName);
+            result.put("src/main/java/io/integration/DataSources" + dsName + ".java", s2i.render(template, values));
+        }
+        return result;
+    }
 
+    private S2ITemplates getTemplates() throws KException {
+        S2ITemplates result = this.templates;
+        if (result == null) {
+            try {
+                result = new S2ITemplates();
             } catch (IOException e) {
                 throw handleError(e);
             }
+            this.templates = result;
         }
+        return result;
     }
 
-    private static String inputStreamToString(InputStream inputStream) throws IOException {
-        StringBuilder textBuilder = new StringBuilder();
-        try (Reader reader = new BufferedReader(new InputStreamReader
-          (inputStream, Charset.forName(StandardCharsets.UTF_8.name())))) {
-            int c = 0;
-            while ((c = reader.read()) != -1) {
-                textBuilder.append((char) c);
-            }
+    private void addResourceEntry(BuildContextWriter writer, String name, String path) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = getTemplates().getResource(name);
+        } catch (KException e) {
+            throw new IOException(e);
         }
-        return textBuilder.toString();
+        writer.addEntry(path, bytes, 0, bytes.length);
     }
 
     /**
@@ -1325,8 +1436,12 @@ public class TeiidOpenShiftClient implements StringConstants {
             return status;
         }
         try {
-            OpenShiftClient client = openshiftClient();
-            status = getVDBService(openShiftName, ApplicationProperties.getNamespace(), client);
+            String namespace = ApplicationProperties.getNamespace();
+            VdbResources resources = syncedResourceCache();
+            if (resources == null) {
+                resources = new ClientVdbResources(openshiftClient(), namespace);
+            }
+            status = getVDBService(openShiftName, namespace, resources);
         } catch (KubernetesClientException e) {
             LOGGER.debug("Could not get build status for VDB: "  +openShiftName +" error:"+ e.getMessage());
             status = new BuildStatus(openShiftName);
@@ -1338,6 +1453,154 @@ public class TeiidOpenShiftClient implements StringConstants {
         return status;
     }
 
+    /**
+     * Get the status of several virtualizations using a constant number of
+     * OpenShift requests, rather than several requests per virtualization.
+     * @param virtualizations
+     * @return the statuses keyed by virtualization name
+     * @throws KException
+     */
+    public Map<String, BuildStatus> getVirtualizationStatuses(Iterable<? extends DataVirtualization> virtualizations) throws KException {
+        Map<String, BuildStatus> result = new HashMap<>();
+        String namespace = ApplicationProperties.getNamespace();
+        VdbResources resources = null;
+        KubernetesClientException listException = null;
+        for (DataVirtualization dv : virtualizations) {
+            String openShiftName = getOpenShiftName(dv.getName());
+            BuildStatus status = getVirtualizationStatusFromQueue(openShiftName);
+            if (status == null) {
+                if (resources == null && listException == null) {
+                    try {
+                        resources = syncedResourceCache();
+                        if (resources == null) {
+                            resources = new ListedVdbResources(openshiftClient(), namespace);
+                        }
+                    } catch (KubernetesClientException e) {
+                        LOGGER.debug("Could not list the vdb services error:"+ e.getMessage());
+                        listException = e;
+                    }
+                }
+                if (listException != null) {
+                    status = new BuildStatus(openShiftName);
+                } else {
+                    status = getVDBService(openShiftName, namespace, resources);
+                }
+                status.setDataVirtualizationName(dv.getName());
+                if (status.getStatus() == BuildStatus.Status.RUNNING) {
+                    status.setUsedBy(findIntegrationUsedIn(dv));
+                }
+            }
+            result.put(dv.getName(), status);
+        }
+        return result;
+    }
+
+    /**
+     * Fetches the resources for a single vdb service as needed
+     */
+    private static class ClientVdbResources implements VdbResources {
+        private final OpenShiftClient client;
+        private final String namespace;
+        private List<Route> routes;
+
+        ClientVdbResources(OpenShiftClient client, String namespace) {
+            this.client = client;
+            this.namespace = namespace;
+        }
+
+        @Override
+        public List<Build> getBuilds(String openShiftName) {
+            BuildList buildList = client.builds().inNamespace(namespace).withLabel("application", openShiftName).list();
+            return buildList == null ? Collections.emptyList() : buildList.getItems();
+        }
+
+        @Override
+        public DeploymentConfig getDeploymentConfig(String openShiftName) {
+            return client.deploymentConfigs().inNamespace(namespace).withName(openShiftName).get();
+        }
+
+        @Override
+        public List<ReplicationController> getReplicationControllers(String openShiftName) {
+            return client.replicationControllers().inNamespace(namespace)
+                    .withLabel("application", openShiftName).list().getItems();
+        }
+
+        @Override
+        public List<Route> getRoutes() {
+            if (routes == null) {
+                RouteList routeList = client.routes().inNamespace(namespace).list();
+                routes = routeList == null ? Collections.emptyList() : routeList.getItems();
+            }
+            return routes;
+        }
+    }
+
+    /**
+     * Lists the resources for all vdb services in the namespace up front
+     * by the application label
+     */
+    private static class ListedVdbResources implements VdbResources {
+        private final Map<String, List<Build>> builds = new HashMap<>();
+        private final Map<String, DeploymentConfig> deploymentConfigs = new HashMap<>();
+        private final Map<String, List<ReplicationController>> replicationControllers = new HashMap<>();
+        private final List<Route> routes;
+
+        ListedVdbResources(OpenShiftClient client, String namespace) {
+            BuildList buildList = client.builds().inNamespace(namespace).withLabel("application").list();
+            if (buildList != null) {
+                for (Build build : buildList.getItems()) {
+                    builds.computeIfAbsent(getApplication(build), k -> new ArrayList<>()).add(build);
+                }
+            }
+            DeploymentConfigList dcList = client.deploymentConfigs().inNamespace(namespace).withLabel("application").list();
+            if (dcList != null) {
+                for (DeploymentConfig dc : dcList.getItems()) {
+                    deploymentConfigs.put(dc.getMetadata().getName(), dc);
+                }
+            }
+            ReplicationControllerList rcList = client.replicationControllers().inNamespace(namespace).withLabel("application").list();
+            if (rcList != null) {
+                for (ReplicationController rc : rcList.getItems()) {
+                    replicationControllers.computeIfAbsent(getApplication(rc), k -> new ArrayList<>()).add(rc);
+                }
+            }
+            List<Route> routeItems = Collections.emptyList();
+            try {
+                RouteList routeList = client.routes().inNamespace(namespace).list();
+                if (routeList != null) {
+                    routeItems = routeList.getItems();
+                }
+            } catch (KubernetesClientException e) {
+                // ignore.. as with a single status, the routes are optional
+            }
+            routes = routeItems;
+        }
+
+        private static String getApplication(HasMetadata resource) {
+            return resource.getMetadata().getLabels().get("application");
+        }
+
+        @Override
+        public List<Build> getBuilds(String openShiftName) {
+            return builds.getOrDefault(openShiftName, Collections.emptyList());
+        }
+
+        @Override
+        public DeploymentConfig getDeploymentConfig(String openShiftName) {
+            return deploymentConfigs.get(openShiftName);
+        }
+
+        @Override
+        public List<ReplicationController> getReplicationControllers(String openShiftName) {
+            return replicationControllers.getOrDefault(openShiftName, Collections.emptyList());
+        }
+
+        @Override
+        public List<Route> getRoutes() {
+            return routes;
+        }
+    }
+
     public String getVirtualizationLog(String virtualization) {
         String openShiftName = getOpenShiftName(virtualization);
         String logPath = getLogPath(openShiftName);
@@ -1352,13 +1615,13 @@ public class TeiidOpenShiftClient implements StringConstants {
         }
     }
 
-    private BuildStatus getVDBService(String openShiftName, String namespace, final OpenShiftClient client) {
+    private BuildStatus getVDBService(String openShiftName, String namespace, final VdbResources resources) {
         BuildStatus status = new BuildStatus(openShiftName);
         status.setNamespace(namespace);
 
-        BuildList buildList = client.builds().inNamespace(namespace).withLabel("application", openShiftName).list();
-        if ((buildList !=null) && !buildList.getItems().isEmpty()) {
-            Build build = buildList.getItems().get(0);
+        List<Build> builds = resources.getBuilds(openShiftName);
+        if (!builds.isEmpty()) {
+            Build build = builds.get(0);
             status.setName(build.getMetadata().getName());
             if (Builds.isCancelled(build.getStatus().getPhase())) {
                 status.setStatus(Status.CANCELLED);
@@ -1367,7 +1630,7 @@ public class TeiidOpenShiftClient implements StringConstants {
                 status.setStatus(Status.FAILED);
                 status.setStatusMessage(build.getStatus().getMessage());
             } else if (Builds.isCompleted(build.getStatus().getPhase())) {
-                DeploymentConfig dc = client.deploymentConfigs().inNamespace(namespace).withName(openShiftName).get();
+                DeploymentConfig dc = resources.getDeploymentConfig(openShiftName);
                 if (dc != null) {
                     status.setStatus(Status.DEPLOYING);
                     status.setDeploymentName(dc.getMetadata().getName());
@@ -1381,7 +1644,7 @@ public class TeiidOpenShiftClient implements StringConstants {
                         ProtocolType[] types = { ProtocolType.ODATA, ProtocolType.JDBC, ProtocolType.PG };
                         for (ProtocolType type : types) {
                             try {
-                                RouteStatus route = getRoute(openShiftName, type);
+                                RouteStatus route = getRoute(openShiftName, type, resources.getRoutes());
                                 if (route == null) {
                                     continue;
                                 }
@@ -1419,8 +1682,7 @@ public class TeiidOpenShiftClient implements StringConstants {
             }
         } else {
             // special case when there is dangling replication controller after delete is found
-            List<ReplicationController> rcs = client.replicationControllers().inNamespace(namespace)
-                    .withLabel("application", openShiftName).list().getItems();
+            List<ReplicationController> rcs = resources.getReplicationControllers(openShiftName);
             if (!rcs.isEmpty()) {
                 ReplicationController rc = rcs.get(0);
                 if (rc.getStatus().getReplicas() == 0) {
@@ -1472,26 +1734,49 @@ public class TeiidOpenShiftClient implements StringConstants {
         runningBuild.setStatusMessage("delete submitted");
         // since delete is async process too, monitor it in the monitor thread.
         if (queue) {
-            workExecutor.submit(new BuildStatusRunner(runningBuild));
+            monitor(runningBuild);
         }
 
         return runningBuild;
     }
 
     private BuildStatus getVirtualizationStatusFromQueue(String openshiftName) {
-        BuildStatus work = this.activeJobs.get(openshiftName);
-        if (work != null) {
-            return work;
-        }
-        for(Runnable r : workExecutor.getQueue()) {
-            if (r instanceof BuildStatusRunner) {
-                BuildStatusRunner status = (BuildStatusRunner)r;
-                if (status.work.getOpenShiftName().equals(openshiftName)) {
-                    return status.work;
-                }
+        return this.inFlight.get(openshiftName);
+    }
+
+    /**
+     * Get a snapshot of the publish and delete jobs that are in progress.
+     * The monitor may update a job while it is copied, but the route and
+     * usedBy lists of a {@link BuildStatus} are copy on write so that a copy
+     * is never torn.
+     * @return copies of the statuses keyed by virtualization name
+     */
+    public Map<String, BuildStatus> getInFlightStatuses() {
+        Map<String, BuildStatus> result = new TreeMap<>();
+        synchronized (this.inFlight) {
+            for (BuildStatus status : this.inFlight.values()) {
+                BuildStatus copy = new BuildStatus(status);
+                String name = copy.getDataVirtualizationName();
+                result.put(name == null ? copy.getOpenShiftName() : name, copy);
             }
         }
-        return null;
+        return result;
+    }
+
+    /**
+     * Add the work to the in flight index and start monitoring
+     */
+    private void monitor(BuildStatus work) {
+        synchronized (this.inFlight) {
+            this.inFlight.put(work.getOpenShiftName(), work);
+        }
+        scheduleMonitor(new BuildStatusRunner(work));
+    }
+
+    private void removeInFlight(BuildStatus work) {
+        synchronized (this.inFlight) {
+            this.inFlight.remove(work.getOpenShiftName(), work);
+        }
     }
 
     private void deleteVDBServiceResources(String openshiftName, String inProgressBuildName, BuildStatus status, OpenShiftClient client) {
@@ -1588,16 +1873,11 @@ public class TeiidOpenShiftClient implements StringConstants {
         status.setStatus(Status.DELETE_DONE);
     }
 
-    private RouteStatus getRoute(String openShiftName, ProtocolType protocolType) {
-        String namespace = ApplicationProperties.getNamespace();
-        OpenShiftClient client = openshiftClient();
+    private RouteStatus getRoute(String openShiftName, ProtocolType protocolType, List<Route> routes) {
         RouteStatus theRoute = null;
         debug(openShiftName, "Getting route of type " + protocolType.id() + " for Service");
-        RouteList routes = client.routes().inNamespace(namespace).list();
-        if (routes == null || routes.getItems().isEmpty())
-            return theRoute;
 
-        for (Route route : routes.getItems()) {
+        for (Route route : routes) {
             ObjectMeta metadata = route.getMetadata();
             String name = metadata.getName();
             if (! name.endsWith(HYPHEN + protocolType.id()))
@@ -1634,70 +1914,62 @@ public class TeiidOpenShiftClient implements StringConstants {
      * @throws KException
      */
     protected String generatePomXml(VDBMetaData vdb, boolean enableOdata) throws KException {
-        try {
-            StringBuilder builder = new StringBuilder();
-            InputStream is = this.getClass().getClassLoader().getResourceAsStream("s2i/template-pom.xml");
-            builder.append(new String(ObjectConverterUtil.convertToByteArray(is)));
-
-            StringBuilder vdbSourceNames = new StringBuilder();
-            StringBuilder vdbDependencies = new StringBuilder();
-            StringBuilder mavenRepositories = new StringBuilder();
-
-            String vdbName = vdb.getName();
-            List<Model> models = vdb.getModels();
-            for (Model model : models) {
-                for (String source : model.getSourceNames()) {
-                    DefaultSyndesisDataSource ds = getSyndesisDataSource(source);
-                    if (ds == null) {
-                        throw new KException("Datasource " + source + " not found");
-                    }
-                    DataSourceDefinition def = ds.getDefinition();
-                    if (def == null) {
-                        throw new KException("Failed to determine the source type for "
-                                + source + " in VDB " + vdb.getName());
-                    }
+        StringBuilder vdbSourceNames = new StringBuilder();
+        StringBuilder vdbDependencies = new StringBuilder();
+        StringBuilder mavenRepositories = new StringBuilder();
 
-                    vdbSourceNames.append(source).append(StringConstants.SPACE); // this used as label
-                    vdbDependencies.append(def.getPomDendencies());
-                    vdbDependencies.append(StringConstants.NEW_LINE);
+        String vdbName = vdb.getName();
+        List<Model> models = vdb.getModels();
+        for (Model model : models) {
+            for (String source : model.getSourceNames()) {
+                DefaultSyndesisDataSource ds = getSyndesisDataSource(source);
+                if (ds == null) {
+                    throw new KException("Datasource " + source + " not found");
                 }
-            }
-
-            if (this.mavenRepos != null) {
-                for (String key: this.mavenRepos.keySet()) {
-                    mavenRepositories.append(StringConstants.NEW_LINE).append("<repository>\n")
-                        .append("<id>").append(key).append("</id>\n")
-                        .append("<name>").append(key).append("</name>\n")
-                        .append("<url>").append(this.mavenRepos.get(key)).append("</url>\n")
-                        .append(
-                            "  <releases>\n" +
-                            "    <enabled>true</enabled>\n" +
-                            "    <updatePolicy>never</updatePolicy>\n" +
-                            "  </releases>\n" +
-                            "  <snapshots>\n" +
-                            "    <enabled>false</enabled>\n" +
-                            "  </snapshots>\n" +
-                            "</repository>");
+                DataSourceDefinition def = ds.getDefinition();
+                if (def == null) {
+                    throw new KException("Failed to determine the source type for "
+                            + source + " in VDB " + vdb.getName());
                 }
+
+                vdbSourceNames.append(source).append(StringConstants.SPACE); // this used as label
+                vdbDependencies.append(def.getPomDendencies());
+                vdbDependencies.append(StringConstants.NEW_LINE);
             }
+        }
 
-            if (enableOdata) {
-                vdbDependencies.append(StringConstants.NEW_LINE).append("<dependency>"
-                        + "<groupId>org.teiid</groupId>"
-                        + "<artifactId>spring-odata</artifactId>"
-                        + "<version>${version.springboot.teiid}</version>"
-                        + "</dependency> ");
+        if (this.mavenRepos != null) {
+            for (String key: this.mavenRepos.keySet()) {
+                mavenRepositories.append(StringConstants.NEW_LINE).append("<repository>\n")
+                    .append("<id>").append(key).append("</id>\n")
+                    .append("<name>").append(key).append("</name>\n")
+                    .append("<url>").append(this.mavenRepos.get(key)).append("</url>\n")
+                    .append(
+                        "  <releases>\n" +
+                        "    <enabled>true</enabled>\n" +
+                        "    <updatePolicy>never</updatePolicy>\n" +
+                        "  </releases>\n" +
+                        "  <snapshots>\n" +
+                        "    <enabled>false</enabled>\n" +
+                        "  </snapshots>\n" +
+                        "</repository>");
             }
+        }
 
-            String pomXML = builder.toString();
-            pomXML = pomXML.replace("<!--vdb-name-->", vdbName);
-            pomXML = pomXML.replace("<!--vdb-source-names-->", vdbSourceNames.toString());
-            pomXML = pomXML.replace("<!--vdb-dependencies-->", vdbDependencies.toString());
-            pomXML = pomXML.replace("<!--internal-repos-->", mavenRepositories.toString());
-            return pomXML;
-        } catch (IOException e) {
-            throw handleError(e);
+        if (enableOdata) {
+            vdbDependencies.append(StringConstants.NEW_LINE).append("<dependency>"
+                    + "<groupId>org.teiid</groupId>"
+                    + "<artifactId>spring-odata</artifactId>"
+                    + "<version>${version.springboot.teiid}</version>"
+                    + "</dependency> ");
         }
+
+        Map<String, CharSequence> values = new HashMap<>();
+        values.put("vdb-name", vdbName);
+        values.put("vdb-source-names", vdbSourceNames);
+        values.put("vdb-dependencies", vdbDependencies);
+        values.put("internal-repos", mavenRepositories);
+        return getTemplates().render(S2ITemplates.POM, values);
     }
 
     protected static KException handleError(Throwable e) {
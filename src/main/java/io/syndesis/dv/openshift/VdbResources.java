@@ -0,0 +1,40 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import java.util.List;
+
+import io.fabric8.kubernetes.api.model.ReplicationController;
+import io.fabric8.openshift.api.model.Build;
+import io.fabric8.openshift.api.model.DeploymentConfig;
+import io.fabric8.openshift.api.model.Route;
+
+/**
+ * The OpenShift resources used to determine the status of a vdb service
+ */
+interface VdbResources {
+
+    List<Build> getBuilds(String openShiftName);
+
+    DeploymentConfig getDeploymentConfig(String openShiftName);
+
+    List<ReplicationController> getReplicationControllers(String openShiftName);
+
+    List<Route> getRoutes();
+
+}
@@ -37,6 +37,9 @@ public abstract class JpaConverterJson<T> implements AttributeConverter<T, Strin
 
     @Override
     public String convertToDatabaseColumn(Object meta) {
+        if (meta == null) {
+            return null;
+        }
         try {
             return objectMapper.writeValueAsString(meta);
         } catch (JsonProcessingException ex) {
@@ -46,6 +49,9 @@ public abstract class JpaConverterJson<T> implements AttributeConverter<T, Strin
 
     @Override
     public T convertToEntityAttribute(String dbData) {
+        if (dbData == null) {
+            return null;
+        }
         try {
             return objectMapper.readValue(dbData, targetClass());
         } catch (IOException ex) {
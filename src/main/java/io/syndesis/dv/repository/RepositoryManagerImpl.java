@@ -18,7 +18,11 @@
 
 package io.syndesis.dv.repository;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import io.syndesis.dv.utils.KLog;
@@ -33,7 +37,9 @@ import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 import io.syndesis.dv.RepositoryManager;
 import io.syndesis.dv.model.DataVirtualization;
+import io.syndesis.dv.model.EntityVersion;
 import io.syndesis.dv.model.SourceSchema;
+import io.syndesis.dv.model.SourceSchemaState;
 import io.syndesis.dv.model.ViewDefinition;
 
 @Component
@@ -92,6 +98,11 @@ public class RepositoryManagerImpl implements RepositoryManager {
         return this.schemaRepository.findBySourceId(id);
     }
 
+    @Override
+    public EntityVersion findSchemaVersionBySourceId(String id) {
+        return this.schemaRepository.findVersionBySourceId(id);
+    }
+
     @Override
     public boolean deleteSchemaBySourceId(String sourceid) {
         try {
@@ -118,6 +129,16 @@ public class RepositoryManagerImpl implements RepositoryManager {
         return dataVirtualizationRepository.findNamesByTypeLike("s"); //$NON-NLS-1$
     }
 
+    @Override
+    public SourceSchemaState findSchemaStateBySourceId(String id) {
+        return this.schemaRepository.findStateBySourceId(id);
+    }
+
+    @Override
+    public List<SourceSchemaState> findAllSchemaStates() {
+        return this.schemaRepository.findAllStates();
+    }
+
     @Override
     public boolean isNameInUse(String name) {
         return dataVirtualizationRepository.countByUpperName(name.toUpperCase()) > 0;
@@ -171,6 +192,27 @@ public class RepositoryManagerImpl implements RepositoryManager {
         return this.viewDefinitionRepository.saveAll(entities);
     }
 
+    @Override
+    public List<String> findSourceTableNames(String sourceName) {
+        return this.viewDefinitionRepository.findSourceTableNames(sourceName);
+    }
+
+    @Override
+    public List<String> findDataVirtualizationNamesBySource(String sourceName, Collection<String> tableNames) {
+        if (tableNames == null) {
+            return this.viewDefinitionRepository.findDataVirtualizationNamesBySource(sourceName);
+        }
+        if (tableNames.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return this.viewDefinitionRepository.findDataVirtualizationNamesBySourceTables(sourceName, tableNames);
+    }
+
+    @Override
+    public List<String> findDataVirtualizationNamesWithoutSourceTables() {
+        return this.viewDefinitionRepository.findDataVirtualizationNamesWithoutSourceTables();
+    }
+
     @Override
     public io.syndesis.dv.model.ViewDefinition createViewDefiniton(String dvName, String viewName) {
         io.syndesis.dv.model.ViewDefinition viewEditorState = new io.syndesis.dv.model.ViewDefinition(dvName, viewName);
@@ -182,6 +224,15 @@ public class RepositoryManagerImpl implements RepositoryManager {
         return this.viewDefinitionRepository.findAllNamesByDataVirtualizationName(dvName);
     }
 
+    @Override
+    public Map<String, Long> findViewDefinitionCounts() {
+        Map<String, Long> result = new HashMap<>();
+        for (Object[] row : this.viewDefinitionRepository.countByDataVirtualizationName()) {
+            result.put((String)row[0], ((Number)row[1]).longValue());
+        }
+        return result;
+    }
+
     @Override
     public List<io.syndesis.dv.model.ViewDefinition> findViewDefinitions(String dvName) {
         return this.viewDefinitionRepository.findAllByDataVirtualizationName(dvName);
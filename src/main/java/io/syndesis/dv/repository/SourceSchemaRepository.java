@@ -18,19 +18,32 @@
 
 package io.syndesis.dv.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import io.syndesis.dv.model.EntityVersion;
 import io.syndesis.dv.model.SourceSchema;
+import io.syndesis.dv.model.SourceSchemaState;
 
 @Repository
 public interface SourceSchemaRepository extends JpaRepository<SourceSchema, String> {
 
     public SourceSchema findBySourceId(String id);
 
+    @Query("select s.id as id, s.version as version from SourceSchema s where s.sourceId = :sourceId")
+    public EntityVersion findVersionBySourceId(@Param("sourceId") String sourceId);
+
+    @Query("select s.sourceId as sourceId, s.name as name, s.state as state, s.error as error from SourceSchema s where s.sourceId = :sourceId")
+    public SourceSchemaState findStateBySourceId(@Param("sourceId") String sourceId);
+
+    @Query("select s.sourceId as sourceId, s.name as name, s.state as state, s.error as error from SourceSchema s")
+    public List<SourceSchemaState> findAllStates();
+
     @Modifying
     @Query("delete from SourceSchema s where s.sourceId=:sourceId")
     public int deleteBySourceId(@Param("sourceId") String sourceid);
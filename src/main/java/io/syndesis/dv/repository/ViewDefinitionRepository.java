@@ -18,6 +18,7 @@
 
 package io.syndesis.dv.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -38,4 +39,20 @@ public interface ViewDefinitionRepository extends JpaRepository<ViewDefinition,
     @Query(value = "SELECT name FROM view_definition WHERE dv_name = ?1", nativeQuery = true)
     public List<String> findAllNamesByDataVirtualizationName(String dvName);
 
+    @Query("select vd.dataVirtualizationName, count(vd) from ViewDefinition vd group by vd.dataVirtualizationName")
+    public List<Object[]> countByDataVirtualizationName();
+
+    @Query("select distinct st.tableName from ViewDefinition vd join vd.sourceTables st where st.sourceName = :sourceName")
+    public List<String> findSourceTableNames(@Param("sourceName") String sourceName);
+
+    @Query("select distinct vd.dataVirtualizationName from ViewDefinition vd join vd.sourceTables st where st.sourceName = :sourceName")
+    public List<String> findDataVirtualizationNamesBySource(@Param("sourceName") String sourceName);
+
+    @Query("select distinct vd.dataVirtualizationName from ViewDefinition vd join vd.sourceTables st where st.sourceName = :sourceName and st.tableName in :tableNames")
+    public List<String> findDataVirtualizationNamesBySourceTables(@Param("sourceName") String sourceName, @Param("tableNames") Collection<String> tableNames);
+
+    @Query(value = "SELECT DISTINCT dv_name FROM view_definition vd WHERE user_defined = TRUE AND complete = TRUE"
+            + " AND NOT EXISTS (SELECT 1 FROM view_source vs WHERE vs.view_id = vd.id)", nativeQuery = true)
+    public List<String> findDataVirtualizationNamesWithoutSourceTables();
+
 }
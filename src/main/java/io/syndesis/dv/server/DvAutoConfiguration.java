@@ -26,6 +26,7 @@ import io.syndesis.dv.metadata.internal.DefaultMetadataInstance;
 import io.syndesis.dv.metadata.internal.TeiidServer;
 import io.syndesis.dv.openshift.EncryptionComponent;
 import io.syndesis.dv.openshift.SyndesisConnectionSynchronizer;
+import io.syndesis.dv.openshift.SyndesisHttpClient;
 import io.syndesis.dv.openshift.TeiidOpenShiftClient;
 import io.syndesis.dv.repository.RepositoryManagerImpl;
 
@@ -116,9 +117,10 @@ public class DvAutoConfiguration implements ApplicationListener<ContextRefreshed
 
     @Bean
     @ConditionalOnMissingBean
-    public TeiidOpenShiftClient openShiftClient(@Autowired RepositoryManager repositoryManager, @Autowired TextEncryptor enc) {
+    public TeiidOpenShiftClient openShiftClient(@Autowired RepositoryManager repositoryManager, @Autowired TextEncryptor enc,
+            @Autowired SyndesisHttpClient httpClient) {
         return new TeiidOpenShiftClient(metadataInstance, new EncryptionComponent(enc),
-                this.config, repositoryManager, this.maven == null ? null : this.maven.getRepositories());
+                this.config, repositoryManager, this.maven == null ? null : this.maven.getRepositories(), httpClient);
     }
 
     @Bean
@@ -134,6 +136,8 @@ public class DvAutoConfiguration implements ApplicationListener<ContextRefreshed
     @Override
     public AsyncTaskExecutor getAsyncExecutor() {
         ThreadPoolTaskExecutor tpte = new ThreadPoolTaskExecutor();
+        //query results are streamed from this pool, so don't use the default of a single thread
+        tpte.setCorePoolSize(config.getAsyncThreads());
         tpte.initialize();
         return tpte;
     }
@@ -22,6 +22,16 @@ public class DvConfigurationProperties {
 
     private boolean exposeVia3scale;
 
+    private int asyncThreads = 10;
+
+    private int syncThreads = 4;
+
+    private int publishThreads = 2;
+
+    private int configureThreads = 6;
+
+    private long connectionEventWindow = 1000;
+
     public void setExposeVia3scale(final boolean exposeVia3scale) {
         this.exposeVia3scale = exposeVia3scale;
     }
@@ -29,4 +39,63 @@ public class DvConfigurationProperties {
     public boolean isExposeVia3scale() {
         return exposeVia3scale;
     }
+
+    /**
+     * @return the number of threads available for async request processing,
+     * such as streaming query results
+     */
+    public int getAsyncThreads() {
+        return asyncThreads;
+    }
+
+    public void setAsyncThreads(int asyncThreads) {
+        this.asyncThreads = asyncThreads;
+    }
+
+    /**
+     * @return the maximum number of connections that will be synchronized concurrently,
+     * which limits the load placed upon the source databases
+     */
+    public int getSyncThreads() {
+        return syncThreads;
+    }
+
+    public void setSyncThreads(int syncThreads) {
+        this.syncThreads = syncThreads;
+    }
+
+    /**
+     * @return the number of threads used to monitor publish and delete jobs
+     */
+    public int getPublishThreads() {
+        return publishThreads;
+    }
+
+    public void setPublishThreads(int publishThreads) {
+        this.publishThreads = publishThreads;
+    }
+
+    /**
+     * @return the number of publish jobs that may concurrently assemble and upload
+     * their build contents, or delete their resources
+     */
+    public int getConfigureThreads() {
+        return configureThreads;
+    }
+
+    public void setConfigureThreads(int configureThreads) {
+        this.configureThreads = configureThreads;
+    }
+
+    /**
+     * @return the milliseconds connection change events are held so that a burst
+     * of changes to the same connection results in a single refresh
+     */
+    public long getConnectionEventWindow() {
+        return connectionEventWindow;
+    }
+
+    public void setConnectionEventWindow(long connectionEventWindow) {
+        this.connectionEventWindow = connectionEventWindow;
+    }
 }
@@ -129,19 +129,32 @@ public final class DataVirtualizationService extends DvService {
             return getWorkspaceManager().findDataVirtualizations();
         });
 
+        //batch the status lookups rather than making remote calls / queries for each virtualization
+        Map<String, BuildStatus> statuses = this.openshiftClient.getVirtualizationStatuses(virtualizations);
+        Map<String, Long> viewCounts = repositoryManager.runInTransaction(true, ()->{
+            return getWorkspaceManager().findViewDefinitionCounts();
+        });
+
         final List<RestDataVirtualization> entities = new ArrayList<>();
         for (final DataVirtualization virtualization : virtualizations) {
-            RestDataVirtualization entity = createRestDataVirtualization(virtualization);
+            RestDataVirtualization entity = createRestDataVirtualization(virtualization,
+                    statuses.get(virtualization.getName()), !viewCounts.containsKey(virtualization.getName()));
             entities.add(entity);
         }
         return entities;
     }
 
     private RestDataVirtualization createRestDataVirtualization(final DataVirtualization virtualization) throws KException {
-        RestDataVirtualization entity = new RestDataVirtualization(virtualization);
-        entity.setServiceViewModel(virtualization.getName());
         // Set published status of virtualization
         BuildStatus status = this.openshiftClient.getVirtualizationStatus(virtualization.getName());
+        return createRestDataVirtualization(virtualization, status,
+                this.getWorkspaceManager().findViewDefinitionsNames(virtualization.getName()).isEmpty());
+    }
+
+    private RestDataVirtualization createRestDataVirtualization(final DataVirtualization virtualization,
+            BuildStatus status, boolean empty) throws KException {
+        RestDataVirtualization entity = new RestDataVirtualization(virtualization);
+        entity.setServiceViewModel(virtualization.getName());
         if (status != null) {
             entity.setPublishedState(status.getStatus().name());
             entity.setPublishPodName(status.getPublishPodName());
@@ -149,7 +162,7 @@ public final class DataVirtualizationService extends DvService {
             entity.setOdataHostName(getOdataHost(status));
             entity.setUsedBy(status.getUsedBy());
         }
-        entity.setEmpty(this.getWorkspaceManager().findViewDefinitionsNames(virtualization.getName()).isEmpty());
+        entity.setEmpty(empty);
         return entity;
     }
 
@@ -683,6 +696,17 @@ public final class DataVirtualizationService extends DvService {
         return createViewList(virtualization, Arrays.asList(vd)).get(0);
     }
 
+    @RequestMapping(value = V1Constants.PUBLISH, method = RequestMethod.GET, produces = { MediaType.APPLICATION_JSON_VALUE })
+    @ApiOperation(value = "Return the status of the publish and delete operations in progress",
+        response = BuildStatus.class, responseContainer = "Map")
+    @ApiResponses(value = {
+        @ApiResponse(code = 406, message = "Only JSON returned by this operation"),
+        @ApiResponse(code = 403, message = "An error has occurred.")
+    })
+    public Map<String, BuildStatus> getPublishStatuses() {
+        return this.openshiftClient.getInFlightStatuses();
+    }
+
     @RequestMapping(value = V1Constants.PUBLISH + StringConstants.FS
             + V1Constants.VIRTUALIZATION_PLACEHOLDER, method = RequestMethod.DELETE, produces = { MediaType.APPLICATION_JSON_VALUE })
     @ApiOperation(value = "Delete Virtualization Service by virtualization name",response = BuildStatus.class)
@@ -729,7 +753,7 @@ public final class DataVirtualizationService extends DvService {
 
             TeiidVdb vdb = metadataService.updatePreviewVdb(dataservice.getName());
 
-            if (vdb == null || !vdb.hasLoaded()) {
+            if (!vdb.hasLoaded()) {
                 throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
             }
 
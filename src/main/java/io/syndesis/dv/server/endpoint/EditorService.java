@@ -17,6 +17,9 @@
  */
 package io.syndesis.dv.server.endpoint;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 import io.syndesis.dv.metadata.MetadataInstance;
@@ -129,8 +132,11 @@ public final class EditorService extends DvService {
         //had captured the inputs
         RestViewDefinitionStatus validated = validateViewDefinition(restViewEditorState);
 
+        //for a user defined view the validation has just determined the source paths from the ddl
+        List<String> sourcePaths = restViewEditorState.isUserDefined() ? restViewEditorState.getSourcePaths() : null;
+
         ViewDefinition vd = repositoryManager.runInTransaction(false, ()->{
-            return upsertViewEditorState(restViewEditorState);
+            return upsertViewEditorState(restViewEditorState, sourcePaths);
         });
 
         validated.setViewDefinition(vd);
@@ -144,6 +150,11 @@ public final class EditorService extends DvService {
 
         RestViewDefinitionStatus viewDefnStatus = new RestViewDefinitionStatus();
 
+        if (restViewDefinition.isUserDefined()) {
+            //the source paths are determined from the ddl
+            restViewDefinition.clearState();
+        }
+
         String viewName = restViewDefinition.getName();
         String viewDdl = restViewDefinition.getDdl();
 
@@ -167,11 +178,11 @@ public final class EditorService extends DvService {
 
         TeiidVdb vdb = metadataService.updatePreviewVdb(restViewDefinition.getDataVirtualizationName());
 
-        if (vdb == null || !vdb.hasLoaded()) {
+        if (!vdb.hasLoaded()) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
         }
 
-        ValidationResult result = vdb.validate(restViewDefinition.getDdl());
+        ValidationResult result = metadataService.validate(vdb, restViewDefinition.getDdl());
         ValidatorReport report = result.getReport();
 
         if (result.getMetadataException() != null) {
@@ -194,7 +205,7 @@ public final class EditorService extends DvService {
             viewDefnStatus.setStatus(ERROR);
             viewDefnStatus.setMessage(errorMsg);
         } else {
-            restViewDefinition.getSourcePaths().clear();
+            restViewDefinition.clearState();
             for (AbstractMetadataRecord r : t.getIncomingObjects()) {
                 if (r instanceof Table) {
                     //TODO: should system stuff be filtered
@@ -230,6 +241,18 @@ public final class EditorService extends DvService {
      * TODO: could refactor to directly save / merge, rather than copy
      */
     ViewDefinition upsertViewEditorState(final ViewDefinition restViewDefn) throws Exception {
+        return upsertViewEditorState(restViewDefn, null);
+    }
+
+    /**
+     * Upserts the view editor state
+     * @param restViewDefn the state
+     * @param validatedSourcePaths the source paths of a user defined view as determined
+     * by validating its ddl, or null if the ddl was not validated
+     * @return the ViewDefinition repo object
+     * @throws Exception exception if a problem is encountered
+     */
+    ViewDefinition upsertViewEditorState(final ViewDefinition restViewDefn, List<String> validatedSourcePaths) throws Exception {
 
         ViewDefinition viewDefn = null;
 
@@ -250,6 +273,7 @@ public final class EditorService extends DvService {
 
         boolean pathsSame = false;
         boolean updateDv = false;
+        List<String> oldSourcePaths = Collections.emptyList();
         // Add a new ViewDefinition
         if (viewDefn == null) {
             updateDv = true;
@@ -259,6 +283,7 @@ public final class EditorService extends DvService {
                 throw new IllegalArgumentException("view name / dv name does not match the persistent state"); //$NON-NLS-1$
             }
             pathsSame = restViewDefn.getSourcePaths().equals(viewDefn.getSourcePaths());
+            oldSourcePaths = new ArrayList<>(viewDefn.getSourcePaths());
             viewDefn.clearState();
         }
 
@@ -268,8 +293,20 @@ public final class EditorService extends DvService {
 
         viewDefn.setDescription(restViewDefn.getDescription());
 
-        for (String restSourcePath: restViewDefn.getSourcePaths()) {
-            viewDefn.addSourcePath(restSourcePath);
+        List<String> sourcePaths = restViewDefn.getSourcePaths();
+        if (restViewDefn.isUserDefined()) {
+            //the source paths of a user defined view are not taken from the client, they
+            //are those determined by validating the ddl, or cleared if the ddl has changed
+            if (validatedSourcePaths != null) {
+                sourcePaths = validatedSourcePaths;
+            } else if (Objects.equals(oldDdl, restViewDefn.getDdl())) {
+                sourcePaths = oldSourcePaths;
+            } else {
+                sourcePaths = Collections.emptyList();
+            }
+        }
+        for (String sourcePath: sourcePaths) {
+            viewDefn.addSourcePath(sourcePath);
         }
         viewDefn.setComplete(restViewDefn.isComplete());
         viewDefn.setUserDefined(restViewDefn.isUserDefined());
@@ -287,7 +324,6 @@ public final class EditorService extends DvService {
             } else if (viewDefn.getDdl() != null && !Objects.equals(oldDdl, viewDefn.getDdl())) {
 
                 //TODO: could pro-actively validate if we're in a good state
-                viewDefn.getSourcePaths().clear();
                 ValidationResult result = metadataInstance.parse(viewDefn.getDdl());
 
                 //if there's partial metadata we can still work with that
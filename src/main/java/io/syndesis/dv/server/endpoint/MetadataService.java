@@ -17,29 +17,55 @@
  */
 package io.syndesis.dv.server.endpoint;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.util.Pair;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.teiid.adminapi.Model.Type;
 import org.teiid.adminapi.VDB.Status;
 import org.teiid.adminapi.impl.ModelMetaData;
@@ -49,7 +75,12 @@ import org.teiid.deployers.CompositeVDB;
 import org.teiid.deployers.VDBLifeCycleListener;
 import org.teiid.metadata.AbstractMetadataRecord;
 import org.teiid.metadata.Schema;
+import org.teiid.metadata.Table;
+import org.teiid.util.FullyQualifiedName;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.util.concurrent.Striped;
 
 import io.swagger.annotations.Api;
@@ -61,13 +92,18 @@ import io.syndesis.dv.KException;
 import io.syndesis.dv.StringConstants;
 import io.syndesis.dv.datasources.DefaultSyndesisDataSource;
 import io.syndesis.dv.metadata.MetadataInstance;
+import io.syndesis.dv.metadata.MetadataInstance.ValidationResult;
 import io.syndesis.dv.metadata.TeiidDataSource;
 import io.syndesis.dv.metadata.TeiidVdb;
 import io.syndesis.dv.metadata.internal.DDLDBMetadataRepository;
 import io.syndesis.dv.metadata.internal.DefaultMetadataInstance;
+import io.syndesis.dv.metadata.query.QSColumnarWriter;
 import io.syndesis.dv.metadata.query.QSResult;
+import io.syndesis.dv.metadata.query.QSResultHandler;
+import io.syndesis.dv.metadata.query.QSResultWriter;
 import io.syndesis.dv.model.DataVirtualization;
 import io.syndesis.dv.model.SourceSchema;
+import io.syndesis.dv.model.SourceSchemaState;
 import io.syndesis.dv.openshift.TeiidOpenShiftClient;
 import io.syndesis.dv.server.DvService;
 import io.syndesis.dv.server.Messages;
@@ -80,9 +116,10 @@ import io.syndesis.dv.utils.StringUtils;
 @RestController
 @RequestMapping( V1Constants.APP_PATH+V1Constants.FS+V1Constants.METADATA_SEGMENT )
 @Api( tags = {V1Constants.METADATA_SEGMENT} )
+@ManagedResource(objectName = "io.syndesis.dv:type=MetadataService", description = "Preview vdb management")
 public class MetadataService extends DvService implements ServiceVdbGenerator.SchemaFinder {
 
-    private static final String FAILED_DDL = "--failed: "; //$NON-NLS-1$
+    private static final String FAILED_DDL = SourceSchema.FAILED_DDL;
 
     private static final String VERSION_PROPERTY = "version"; //$NON-NLS-1$
 
@@ -95,9 +132,20 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
      */
     public static final String TABLE_OPTION_FQN = AbstractMetadataRecord.RELATIONAL_URI+"fqn"; //$NON-NLS-1$
 
+    private static final String IMPORTER_EXCLUDE_TABLES = "importer.excludeTables"; //$NON-NLS-1$
+
     @Autowired
     private MetadataInstance metadataInstance;
 
+    @Autowired
+    private DDLDBMetadataRepository ddlDbMetadataRepository;
+
+    /**
+     * The mapper configured for the json responses, used to stream query results
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Anything that updates the main preview vdb or can
      * undeploy an active connection vdb will be delegated
@@ -106,6 +154,23 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
     @Autowired
     private ScheduledThreadPoolExecutor connectionExecutor;
 
+    /**
+     * The window in which requests to refresh the master preview vdb are coalesced
+     */
+    @Value("${preview.refresh.delay:500}")
+    private long previewRefreshDelayMillis = 500;
+
+    private AtomicBoolean previewRefreshScheduled = new AtomicBoolean();
+    private AtomicLong previewRefreshRequests = new AtomicLong();
+    private AtomicLong previewRefreshesCollapsed = new AtomicLong();
+
+    /**
+     * source table paths changed since the last preview refresh, guarded by itself.
+     * if invalidateAllPreviews is set, then all preview vdbs are affected
+     */
+    private Set<String> changedSourcePaths = new HashSet<>();
+    private boolean invalidateAllPreviews;
+
     /**
      * locks to make sure request threads don't step on each other's
      * vdb deployments/undeployments. The keys are either dv names, or
@@ -113,9 +178,87 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
      */
     private Striped<Lock> previewVdbLocks = Striped.lazyWeakLock(32);
     /**
-     * lock for operations that depend on / affect the master preview vdb
+     * lock for operations that depend on / affect the master preview vdb.
+     * Virtualization preview deployments share the read lock, so that
+     * different virtualizations may deploy in parallel.
+     */
+    private ReadWriteLock masterLock = new ReentrantReadWriteLock();
+
+    /**
+     * A virtualization preview vdb deployment that has not yet completed
      */
-    private Object masterLock = new Object();
+    private static class PreviewDeployment {
+        private final Long version;
+        private final CompletableFuture<TeiidVdb> future = new CompletableFuture<>();
+
+        PreviewDeployment(Long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * in-flight preview vdb deployments, keyed by preview vdb name
+     */
+    private ConcurrentHashMap<String, PreviewDeployment> previewDeployments = new ConcurrentHashMap<>();
+
+    @Value("${preview.deploy.threads:4}")
+    private int previewDeployThreads = 4;
+
+    /**
+     * The maximum time a request will wait for a preview vdb deployment
+     */
+    @Value("${preview.deploy.timeout:120000}")
+    private long previewDeployTimeoutMillis = 120000;
+
+    private ThreadPoolExecutor previewExecutor;
+
+    /**
+     * A view ddl validation against a specific preview vdb deployment
+     */
+    private static final class ValidationKey {
+        private final String vdbName;
+        private final String version;
+        private final long generation;
+        private final String ddl;
+
+        ValidationKey(String vdbName, String version, long generation, String ddl) {
+            this.vdbName = vdbName;
+            this.version = version;
+            this.generation = generation;
+            this.ddl = ddl;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(vdbName, version, generation, ddl);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ValidationKey)) {
+                return false;
+            }
+            ValidationKey other = (ValidationKey) obj;
+            return generation == other.generation
+                    && vdbName.equals(other.vdbName)
+                    && Objects.equals(version, other.version)
+                    && ddl.equals(other.ddl);
+        }
+    }
+
+    @Value("${preview.validation.cache.size:500}")
+    private long validationCacheSize = 500;
+
+    private Cache<ValidationKey, ValidationResult> validationCache;
+
+    /**
+     * incremented each time a preview vdb is deployed, updated, or removed
+     * so that validations against a prior deployment are no longer used
+     */
+    private ConcurrentHashMap<String, Long> previewGenerations = new ConcurrentHashMap<>();
 
     private MetadataInstance getMetadataInstance() {
         return metadataInstance;
@@ -128,11 +271,87 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
         getMetadataInstance().undeployDynamicVdb(vdbName);
     }
 
+    /**
+     * Request a refresh of the master preview vdb on the connectionExecutor.  Requests
+     * made before a scheduled refresh starts are collapsed into that refresh.
+     */
+    public void requestPreviewVdbRefresh() {
+        requestPreviewVdbRefresh(null);
+    }
+
+    /**
+     * Request a refresh of the master preview vdb, see {@link #requestPreviewVdbRefresh()}
+     * @param changedPaths the source table paths, or source paths for all tables of a source,
+     * that have changed.  Only the virtualization preview vdbs that depend upon them will be invalidated.
+     * null if any preview vdb may be affected.
+     */
+    void requestPreviewVdbRefresh(Collection<String> changedPaths) {
+        synchronized (changedSourcePaths) {
+            if (changedPaths == null) {
+                invalidateAllPreviews = true;
+            } else {
+                changedSourcePaths.addAll(changedPaths);
+            }
+        }
+        previewRefreshRequests.incrementAndGet();
+        if (!previewRefreshScheduled.compareAndSet(false, true)) {
+            previewRefreshesCollapsed.incrementAndGet();
+            return;
+        }
+        connectionExecutor.schedule(()->{
+            //clear first so that requests made during the refresh schedule another
+            previewRefreshScheduled.set(false);
+            Set<String> pendingPaths = null;
+            synchronized (changedSourcePaths) {
+                if (!invalidateAllPreviews) {
+                    pendingPaths = new HashSet<>(changedSourcePaths);
+                }
+                changedSourcePaths.clear();
+                invalidateAllPreviews = false;
+            }
+            try {
+                refreshPreviewVdb(pendingPaths);
+            } catch (Exception e) {
+                LOGGER.error("could not refresh preview vdb", e); //$NON-NLS-1$
+            }
+        }, previewRefreshDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @ManagedAttribute(description = "Number of view validations answered from the validation cache")
+    public long getValidationCacheHits() {
+        return validationCache.stats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Number of requests to refresh the preview vdb")
+    public long getPreviewRefreshRequests() {
+        return previewRefreshRequests.get();
+    }
+
+    @ManagedAttribute(description = "Number of preview vdb refresh requests collapsed into an already scheduled refresh")
+    public long getPreviewRefreshesCollapsed() {
+        return previewRefreshesCollapsed.get();
+    }
+
     public void refreshPreviewVdb() throws KException {
+        refreshPreviewVdb(null);
+    }
+
+    /**
+     * Redeploy the master preview vdb
+     * @param changedPaths the source table or source paths that have changed,
+     * or null if all virtualization preview vdbs should be invalidated
+     */
+    void refreshPreviewVdb(Set<String> changedPaths) throws KException {
         VDBMetaData workingCopy = new VDBMetaData();
         workingCopy.setName(EditorService.PREVIEW_VDB);
         workingCopy.addProperty("preview", "true");  //$NON-NLS-1$ //$NON-NLS-2$
 
+        Set<String> indexed = new HashSet<>();
+        Set<String> dependents = new HashSet<>();
+        if (changedPaths != null) {
+            findDependentVirtualizations(changedPaths, indexed, dependents);
+        }
+
         Collection<TeiidVdb> vdbs = getMetadataInstance().getVdbs();
         for( TeiidVdb vdb: vdbs) {
             if (vdb.getName().endsWith(CONNECTION_VDB_SUFFIX)) {
@@ -144,34 +363,151 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
                 vdbImport.setName(vdb.getName());
                 workingCopy.getVDBImports().add(vdbImport);
             } else if (vdb.getName().endsWith(StringConstants.SERVICE_VDB_SUFFIX)) {
+                if (changedPaths != null) {
+                    String dvName = vdb.getName().substring(0, vdb.getName().length() - StringConstants.SERVICE_VDB_SUFFIX.length());
+                    boolean affected = false;
+                    if (!vdb.hasLoaded() || !vdb.getValidityErrors().isEmpty()) {
+                        //the views may reference tables that were just added
+                        affected = true;
+                    } else if (indexed.contains(dvName)) {
+                        affected = dependents.contains(dvName);
+                    } else {
+                        affected = dependsOn(vdb, changedPaths);
+                    }
+                    if (!affected) {
+                        //unaffected, the imported metadata it uses is unchanged
+                        continue;
+                    }
+                }
                 //no longer valid
-                synchronized (masterLock) {
+                masterLock.writeLock().lock();
+                try {
                     //TODO: could make this the more granular lock
                     getMetadataInstance().undeployDynamicVdb(vdb.getName());
+                } finally {
+                    masterLock.writeLock().unlock();
                 }
             }
         }
-        synchronized (masterLock) {
+        masterLock.writeLock().lock();
+        try {
             getMetadataInstance().deploy(workingCopy);
+        } finally {
+            masterLock.writeLock().unlock();
         }
         LOGGER.debug("preview vdb updated"); //$NON-NLS-1$
     }
 
+    /**
+     * Use the recorded view source tables to find the virtualizations that depend on the paths
+     * @param indexed the virtualizations whose source tables are all recorded
+     * @param dependents the indexed virtualizations that reference any of the paths
+     */
+    private void findDependentVirtualizations(Set<String> paths, Set<String> indexed, Set<String> dependents) {
+        //the table names by source, a null value means any table of the source
+        Map<String, Set<String>> tablesBySource = new HashMap<>();
+        for (String path : paths) {
+            List<Pair<String, String>> options = PathUtils.getOptions(path);
+            String sourceName = options.get(0).getSecond();
+            if (options.size() == 1) {
+                tablesBySource.put(sourceName, null);
+            } else if (!tablesBySource.containsKey(sourceName) || tablesBySource.get(sourceName) != null) {
+                tablesBySource.computeIfAbsent(sourceName, k -> new HashSet<>()).add(options.get(1).getSecond());
+            }
+        }
+        try {
+            repositoryManager.runInTransaction(true, () -> {
+                indexed.addAll(repositoryManager.findDataVirtualizationNames());
+                indexed.removeAll(repositoryManager.findDataVirtualizationNamesWithoutSourceTables());
+                for (Map.Entry<String, Set<String>> entry : tablesBySource.entrySet()) {
+                    dependents.addAll(repositoryManager.findDataVirtualizationNamesBySource(entry.getKey(), entry.getValue()));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            LOGGER.warn("Could not find the virtualizations using the changed source tables", e); //$NON-NLS-1$
+            //check the preview vdbs instead
+            indexed.clear();
+        }
+    }
+
+    /**
+     * @return true if the views of the preview vdb reference any of the source table paths
+     */
+    static boolean dependsOn(TeiidVdb vdb, Set<String> paths) {
+        for (Schema schema : vdb.getLocalSchema()) {
+            for (Table view : schema.getTables().values()) {
+                for (AbstractMetadataRecord r : view.getIncomingObjects()) {
+                    if (r instanceof Table && (paths.contains(getSourcePath(r.getParent().getName(), r.getName()))
+                            || paths.contains(getSourcePath(r.getParent().getName())))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the path representing all tables of a source
+     */
+    static String getSourcePath(String sourceName) {
+        return new FullyQualifiedName(Schema.getTypeName(), sourceName).toString();
+    }
+
+    /**
+     * @return the path used by view definitions to reference a source table
+     */
+    static String getSourcePath(String sourceName, String tableName) {
+        FullyQualifiedName fqn = new FullyQualifiedName(Schema.getTypeName(), sourceName);
+        fqn.append(Schema.getChildType(Table.class), tableName);
+        return fqn.toString();
+    }
+
+    /**
+     * Compare the loaded source schema with the current schema at a table level
+     * @return the paths of the removed and changed tables, or null if there is no current schema
+     * or a table was added - any view may then reference the new table
+     */
+    static Set<String> getChangedSourcePaths(String sourceName, Schema current, Schema loaded) {
+        if (current == null || loaded == null) {
+            return null;
+        }
+        Set<String> result = new HashSet<>();
+        for (Table table : loaded.getTables().values()) {
+            Table existing = current.getTable(table.getName());
+            if (existing == null) {
+                return null;
+            }
+            if (!DefaultMetadataInstance.getTableBody(existing).equals(DefaultMetadataInstance.getTableBody(table))) {
+                result.add(getSourcePath(sourceName, table.getName()));
+            }
+        }
+        for (Table table : current.getTables().values()) {
+            if (loaded.getTable(table.getName()) == null) {
+                result.add(getSourcePath(sourceName, table.getName()));
+            }
+        }
+        return result;
+    }
+
     /**
      * Query the teiid server
      * @param kqa the query attribute (never <code>null</code>)
-     * @return a JSON representation of the Query results (never <code>null</code>)
+     * @return a JSON representation of the Query results (never <code>null</code>),
+     * which is streamed from the result set as it is read
      * @throws Exception
      */
     @SuppressWarnings( "nls" )
     @RequestMapping(value = V1Constants.QUERY_SEGMENT, method = RequestMethod.POST,
-        produces= { MediaType.APPLICATION_JSON_VALUE }, consumes = { MediaType.APPLICATION_JSON_VALUE })
-    @ApiOperation(value = "Pass a query to the teiid server")
+        produces= { MediaType.APPLICATION_JSON_VALUE, QSColumnarWriter.MEDIA_TYPE }, consumes = { MediaType.APPLICATION_JSON_VALUE })
+    @ApiOperation(value = "Pass a query to the teiid server", response = QSResult.class,
+        notes = "Accept " + QSColumnarWriter.MEDIA_TYPE + " for a compact result with the values grouped by column, in chunks of rows")
     @ApiResponses(value = {
         @ApiResponse(code = 406, message = "Only JSON is returned by this operation"),
         @ApiResponse(code = 400, message = "An error has occurred.")
     })
-    public QSResult query(@ApiParam( value = "" +
+    public ResponseEntity<StreamingResponseBody> query(@ApiParam( value = "" +
              "JSON of the properties of the query:<br>" +
              OPEN_PRE_TAG +
              OPEN_BRACE + BR +
@@ -184,7 +520,8 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
              NBSP + "offset: The index of the result to begin the results with" + BR +
              CLOSE_BRACE +
              CLOSE_PRE_TAG,required = true)
-           @RequestBody final QueryAttribute kqa) throws Exception {
+           @RequestBody final QueryAttribute kqa,
+           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) final String accept) throws Exception {
         //
         // Error if there is no query attribute defined
         //
@@ -200,13 +537,97 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
         String query = kqa.getQuery();
 
         TeiidVdb vdb = updatePreviewVdb(target);
+        if (!vdb.hasLoaded()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+        }
 
         LOGGER.debug("Establishing query service for query %s on vdb %s", query, target);
-        QSResult result = getMetadataInstance().query(vdb.getName(), query, kqa.getOffset(), kqa.getLimit());
-        return result;
+        if (isColumnar(accept)) {
+            StreamingResponseBody body = out -> {
+                QSColumnarWriter writer = new QSColumnarWriter(out, objectMapper);
+                runQuery(vdb.getName(), query, kqa, writer);
+                writer.finish();
+            };
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType(QSColumnarWriter.MEDIA_TYPE)).body(body);
+        }
+        StreamingResponseBody body = out -> {
+            QSResultWriter writer = new QSResultWriter(out, objectMapper);
+            runQuery(vdb.getName(), query, kqa, writer);
+            //only complete the document if the query was successful
+            writer.finish();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
+    private void runQuery(String vdbName, String query, QueryAttribute kqa, QSResultHandler handler) throws IOException {
+        try {
+            getMetadataInstance().query(vdbName, query, kqa.getOffset(), kqa.getLimit(), handler);
+        } catch (KException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * The columnar form is only used when explicitly requested
+     */
+    private static boolean isColumnar(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        MediaType columnar = MediaType.parseMediaType(QSColumnarWriter.MEDIA_TYPE);
+        List<MediaType> types = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(types);
+        for (MediaType type : types) {
+            if (type.equalsTypeAndSubtype(columnar)) {
+                return true;
+            }
+            if (type.equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ensure the preview vdb for the virtualization is up-to-date, waiting for any
+     * deployment to complete.
+     * @return the preview vdb, never null
+     * @throws ResponseStatusException SERVICE_UNAVAILABLE if the preview vdb was removed
+     * prior to completing deployment
+     * @throws KException if the deployment does not complete in time
+     */
     protected TeiidVdb updatePreviewVdb(String dvName) throws Exception {
+        CompletableFuture<TeiidVdb> future = updatePreviewVdbAsync(dvName);
+        TeiidVdb result = null;
+        try {
+            result = future.get(previewDeployTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception)e.getCause();
+            }
+            throw e;
+        } catch (TimeoutException e) {
+            //a vdb that fails to load may never complete the deployment, so
+            //fail it for all waiters and allow the next request to deploy again
+            String serviceVdbName = DataVirtualization.getPreviewVdbName(dvName);
+            previewDeployments.computeIfPresent(serviceVdbName, (k, pending) -> pending.future == future ? null : pending);
+            KException ex = new KException("Timed out waiting for the preview vdb deployment of " + dvName); //$NON-NLS-1$
+            future.completeExceptionally(ex);
+            throw ex;
+        }
+        if (result == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return result;
+    }
+
+    /**
+     * Ensure the preview vdb for the virtualization is up-to-date.  If a deployment
+     * is needed it is performed asynchronously - concurrent requests for the same
+     * version will share the same deployment.
+     * @return a future that completes once the preview vdb has finished deploying
+     */
+    protected CompletableFuture<TeiidVdb> updatePreviewVdbAsync(String dvName) throws Exception {
         return repositoryManager.runInTransaction(true, ()->{
             DataVirtualization dv = repositoryManager.findDataVirtualization(dvName);
             if (dv == null) {
@@ -218,31 +639,117 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
 
             if (vdb != null
                     && dv.getVersion().compareTo(Long.valueOf(vdb.getPropertyValue(VERSION_PROPERTY))) == 0) {
-                return vdb;
+                return CompletableFuture.completedFuture(vdb);
             }
-            Lock lock = previewVdbLocks.get(dvName);
-            lock.lock();
-            try {
-                vdb = getMetadataInstance().getVdb(serviceVdbName);
-                if (vdb != null
-                        && dv.getVersion().compareTo(Long.valueOf(vdb.getPropertyValue(VERSION_PROPERTY))) == 0) {
-                    return vdb;
-                }
-                VDBMetaData theVdb = new ServiceVdbGenerator(this)
-                        .createPreviewVdb(dvName, serviceVdbName, repositoryManager.findViewDefinitions(dvName));
-                theVdb.addProperty(VERSION_PROPERTY, dv.getVersion().toString());
 
-                synchronized (masterLock) {
-                    metadataInstance.deploy(theVdb);
-                    vdb = metadataInstance.getVdb(serviceVdbName);
+            PreviewDeployment created = new PreviewDeployment(dv.getVersion());
+            PreviewDeployment pending = previewDeployments.compute(serviceVdbName, (k, existing) -> {
+                if (existing != null && existing.version.equals(created.version)) {
+                    return existing;
                 }
-            } finally {
-                lock.unlock();
+                if (existing != null) {
+                    //superseded - complete the older request with the newer deployment
+                    created.future.whenComplete((result, error) -> {
+                        if (error != null) {
+                            existing.future.completeExceptionally(error);
+                        } else {
+                            existing.future.complete(result);
+                        }
+                    });
+                }
+                return created;
+            });
+            if (pending != created) {
+                return pending.future;
             }
-            return vdb;
+
+            VDBMetaData theVdb = new ServiceVdbGenerator(this)
+                    .createPreviewVdb(dvName, serviceVdbName, repositoryManager.findViewDefinitions(dvName));
+            theVdb.addProperty(VERSION_PROPERTY, dv.getVersion().toString());
+
+            previewExecutor.execute(() -> deployPreviewVdb(dvName, theVdb, pending));
+            return pending.future;
         });
     }
 
+    private void deployPreviewVdb(String dvName, VDBMetaData theVdb, PreviewDeployment pending) {
+        String serviceVdbName = theVdb.getName();
+        Lock lock = previewVdbLocks.get(dvName);
+        lock.lock();
+        masterLock.readLock().lock();
+        try {
+            if (previewDeployments.get(serviceVdbName) != pending) {
+                //a newer version will be deployed instead
+                return;
+            }
+            TeiidVdb vdb = getMetadataInstance().getVdb(serviceVdbName);
+            //a full deploy is only needed if more than the view definitions have changed
+            if (vdb != null && getMetadataInstance().updateViews(theVdb)) {
+                previewVdbChanged(serviceVdbName);
+            } else {
+                getMetadataInstance().deploy(theVdb);
+                vdb = getMetadataInstance().getVdb(serviceVdbName);
+                if (vdb == null || vdb.isLoading()) {
+                    //will be completed by the listener
+                    return;
+                }
+            }
+            completePreviewDeployment(serviceVdbName, pending, vdb);
+        } catch (Exception e) {
+            previewDeployments.remove(serviceVdbName, pending);
+            pending.future.completeExceptionally(e);
+        } finally {
+            masterLock.readLock().unlock();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Validate the view ddl against the given virtualization preview vdb.  Results are cached
+     * until the preview vdb is next deployed, updated, or removed.
+     */
+    public ValidationResult validate(TeiidVdb vdb, String ddl) throws KException {
+        String vdbName = vdb.getName();
+        long generation = previewGenerations.getOrDefault(vdbName, 0L);
+        //use the currently deployed instance, which may be newer than the one passed in
+        TeiidVdb current = getMetadataInstance().getVdb(vdbName);
+        if (current == null || !current.hasLoaded()) {
+            return vdb.validate(ddl);
+        }
+        ValidationKey key = new ValidationKey(vdbName, current.getPropertyValue(VERSION_PROPERTY), generation, ddl);
+        ValidationResult result = validationCache.getIfPresent(key);
+        if (result == null) {
+            result = current.validate(ddl);
+            validationCache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Invalidate the cached validations against the given preview vdb
+     */
+    private void previewVdbChanged(String vdbName) {
+        previewGenerations.merge(vdbName, 1L, Long::sum);
+        validationCache.asMap().keySet().removeIf(k -> k.vdbName.equals(vdbName));
+    }
+
+    private void completePreviewDeployment(String serviceVdbName, PreviewDeployment pending, TeiidVdb vdb) {
+        previewDeployments.remove(serviceVdbName, pending);
+        pending.future.complete(vdb);
+    }
+
+    /**
+     * @return the pending deployment for the given preview vdb instance
+     */
+    private PreviewDeployment getPreviewDeployment(String name, CompositeVDB vdb) {
+        PreviewDeployment pending = previewDeployments.get(name);
+        if (pending == null
+                || !pending.version.toString().equals(vdb.getVDB().getPropertyValue(VERSION_PROPERTY))) {
+            return null;
+        }
+        return pending;
+    }
+
     /**
      * Initiate schema refresh for a syndesis source.
      * @param teiidSourceName the syndesis source name (cannot be empty)
@@ -269,6 +776,14 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
 
     public void deploySourceVdb(String teiidSourceName,
             SourceDeploymentMode sourceDeploymentMode ) throws Exception {
+        deploySourceVdb(teiidSourceName, sourceDeploymentMode, null);
+    }
+
+    /**
+     * @param changedPaths the source table paths affected by the deployment, or null if unknown
+     */
+    private void deploySourceVdb(String teiidSourceName,
+            SourceDeploymentMode sourceDeploymentMode, Set<String> changedPaths) throws Exception {
         TeiidDataSource teiidSource = getMetadataInstance().getDataSource(teiidSourceName);
 
         if (teiidSource == null) {
@@ -276,22 +791,22 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
         }
 
         repositoryManager.runInTransaction(true, () -> {
-            doDeploySourceVdb(teiidSource, sourceDeploymentMode);
+            doDeploySourceVdb(teiidSource, sourceDeploymentMode, changedPaths);
             return null;
         });
     }
 
     public boolean deleteSchema(DefaultSyndesisDataSource dsd) throws Exception {
-        //TODO: this can invalidate a lot of stuff
         boolean result = repositoryManager.runInTransaction(false, () -> {
             return repositoryManager.deleteSchemaBySourceId(dsd.getSyndesisConnectionId());
         });
 
         if (result) {
+            ddlDbMetadataRepository.evict(dsd.getSyndesisConnectionId());
             connectionExecutor.execute(()->{
                 try {
                     removeVdb(getWorkspaceSourceVdbName(dsd.getTeiidName()));
-                    refreshPreviewVdb();
+                    requestPreviewVdbRefresh(Collections.singleton(getSourcePath(dsd.getTeiidName())));
                 } catch (KException e) {
                     LOGGER.warn("Error removing the source vdb", e); //$NON-NLS-1$
                 }
@@ -301,8 +816,48 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
         return result;
     }
 
+    @PreDestroy
+    void shutdown() {
+        previewExecutor.shutdownNow();
+    }
+
     @PostConstruct
     void init() {
+        previewExecutor = new ThreadPoolExecutor(previewDeployThreads, previewDeployThreads,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        previewExecutor.allowCoreThreadTimeOut(true);
+        validationCache = CacheBuilder.newBuilder()
+                .maximumSize(validationCacheSize)
+                .recordStats()
+                .build();
+        this.metadataInstance.addVDBLifeCycleListener(new VDBLifeCycleListener() {
+            @Override
+            public void finishedDeployment(String name, CompositeVDB vdb) {
+                if (name.endsWith(StringConstants.SERVICE_VDB_SUFFIX)) {
+                    previewVdbChanged(name);
+                }
+                PreviewDeployment pending = getPreviewDeployment(name, vdb);
+                if (pending != null) {
+                    try {
+                        completePreviewDeployment(name, pending, getMetadataInstance().getVdb(name));
+                    } catch (KException e) {
+                        pending.future.completeExceptionally(e);
+                    }
+                }
+            }
+
+            @Override
+            public void removed(String name, CompositeVDB vdb) {
+                if (name.endsWith(StringConstants.SERVICE_VDB_SUFFIX)) {
+                    previewVdbChanged(name);
+                }
+                PreviewDeployment pending = getPreviewDeployment(name, vdb);
+                if (pending != null) {
+                    //removed prior to finishing
+                    completePreviewDeployment(name, pending, null);
+                }
+            }
+        });
         //create an initial dummy preview vdb
         try {
             refreshPreviewVdb();
@@ -321,11 +876,18 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
                 try {
                     String teiidSourceName = vdb.getVDB().getModels().get(0).getName();
                     String modelDdl;
+                    Set<String> changedPaths = null;
                     Lock lock = previewVdbLocks.get(name);
                     lock.lock();
                     try {
                         if (vdb.getVDB().getStatus() == Status.ACTIVE) {
                             modelDdl = getMetadataInstance().getSchema(name, teiidSourceName);
+                            TeiidVdb current = getMetadataInstance().getVdb(getWorkspaceSourceVdbName(teiidSourceName));
+                            TeiidVdb loaded = getMetadataInstance().getVdb(name);
+                            if (current != null && current.isActive() && loaded != null) {
+                                changedPaths = getChangedSourcePaths(teiidSourceName,
+                                        current.getSchema(teiidSourceName), loaded.getSchema(teiidSourceName));
+                            }
                         } else {
                             //failed, effectively remove the source
                             List<String> errors = vdb.getVDB().getValidityErrors();
@@ -337,10 +899,20 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
                         lock.unlock();
                     }
                     boolean updateSource = false;
+                    final Set<String> changed = changedPaths;
                     try {
                         updateSource = repositoryManager.runInTransaction(false, () -> {
                             SourceSchema schema = repositoryManager.findSchemaBySourceId(vdb.getVDB().getPropertyValue(TeiidOpenShiftClient.ID));
                             if (schema != null) {
+                                if (changed != null && schema.getState() == SourceSchema.State.LOADED) {
+                                    //the current source vdb reflects the saved ddl, so there is
+                                    //no need to read and compare the ddl if no table has changed
+                                    if (changed.isEmpty()) {
+                                        return false;
+                                    }
+                                    schema.setDdl(modelDdl);
+                                    return true;
+                                }
                                 String ddl = schema.getDdl();
                                 if (!Objects.equals(ddl, modelDdl)) {
                                     schema.setDdl(modelDdl);
@@ -360,7 +932,7 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
                     if (updateSource) {
                         connectionExecutor.execute(()->{
                             try {
-                                deploySourceVdb(teiidSourceName, SourceDeploymentMode.REPLACE_DDL);
+                                deploySourceVdb(teiidSourceName, SourceDeploymentMode.REPLACE_DDL, changed);
                             } catch (Exception e) {
                                 LOGGER.warn("Could not replace schema or update the preview vdb", e); //$NON-NLS-1$
                             }});
@@ -408,6 +980,197 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
         });
     }
 
+    /**
+     * @param teiidSourceName  the name of the source whose table names are being requested (cannot be empty)
+     * @param refresh true if the catalog should be read again from the source
+     * @return the qualified names of all source tables, which includes those not imported
+     * @throws Exception
+     */
+    @RequestMapping(value = TEIID_SOURCE_PLACEHOLDER + FS + "catalog", method = RequestMethod.GET, produces = { MediaType.APPLICATION_JSON_VALUE })
+    @ApiOperation( value = "Get the names of all tables in the teiid source, including those not imported",
+                   response = String.class,
+                   responseContainer =  "List")
+    @ApiResponses( value = {
+        @ApiResponse( code = 400, message = "The source does not support a table catalog" ),
+        @ApiResponse( code = 404, message = "No teiid source could be found with the specified name" ),
+        @ApiResponse( code = 406, message = "Only JSON is returned by this operation" )
+    } )
+    public List<String> getTableCatalog(@ApiParam( value = "Name of the teiid source", required = true )
+                               @PathVariable(TEIID_SOURCE) final String teiidSourceName,
+                               @ApiParam( value = "Read the catalog from the source rather than using the saved catalog" )
+                               @RequestParam(value = "refresh", required = false) final boolean refresh) throws Exception {
+        TeiidDataSource teiidSource = getMetadataInstance().getDataSource(teiidSourceName);
+        if (teiidSource == null) {
+            throw notFound( teiidSourceName );
+        }
+
+        List<String> catalog = repositoryManager.runInTransaction(true, ()->{
+            SourceSchema schema = repositoryManager.findSchemaBySourceId(teiidSource.getSyndesisId());
+            if (schema == null) {
+                throw notFound( teiidSourceName );
+            }
+            return schema.getTableCatalog();
+        });
+        if (catalog != null && !refresh) {
+            return catalog;
+        }
+
+        //only the table names are read, which is much cheaper than an import
+        List<String> tableNames = getMetadataInstance().getSourceTableNames(teiidSourceName);
+        if (tableNames == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The source does not support a table catalog"); //$NON-NLS-1$
+        }
+        repositoryManager.runInTransaction(false, ()->{
+            SourceSchema schema = repositoryManager.findSchemaBySourceId(teiidSource.getSyndesisId());
+            if (schema != null) {
+                schema.setTableCatalog(tableNames);
+            }
+            return null;
+        });
+        return tableNames;
+    }
+
+    /**
+     * @param teiidSourceName  the name of the source (cannot be empty)
+     * @return the import settings, or null if all tables are imported
+     * @throws Exception
+     */
+    @RequestMapping(value = TEIID_SOURCE_PLACEHOLDER + FS + "importSettings", method = RequestMethod.GET, produces = { MediaType.APPLICATION_JSON_VALUE })
+    @ApiOperation( value = "Get the settings that limit which tables are imported from the teiid source",
+                   response = SourceSchema.ImportSettings.class)
+    @ApiResponses( value = {
+        @ApiResponse( code = 404, message = "No teiid source could be found with the specified name" ),
+        @ApiResponse( code = 406, message = "Only JSON is returned by this operation" )
+    } )
+    public SourceSchema.ImportSettings getImportSettings(@ApiParam( value = "Name of the teiid source", required = true )
+                               @PathVariable(TEIID_SOURCE) final String teiidSourceName) throws Exception {
+        TeiidDataSource teiidSource = getMetadataInstance().getDataSource(teiidSourceName);
+        if (teiidSource == null) {
+            throw notFound( teiidSourceName );
+        }
+        return repositoryManager.runInTransaction(true, ()->{
+            SourceSchema schema = repositoryManager.findSchemaBySourceId(teiidSource.getSyndesisId());
+            if (schema == null) {
+                throw notFound( teiidSourceName );
+            }
+            return schema.getImportSettings();
+        });
+    }
+
+    /**
+     * Save the import settings and refresh the source schema
+     * @param teiidSourceName  the name of the source (cannot be empty)
+     * @param settings the import settings
+     * @throws Exception
+     */
+    @RequestMapping(value = TEIID_SOURCE_PLACEHOLDER + FS + "importSettings", method = RequestMethod.PUT,
+            produces = { MediaType.APPLICATION_JSON_VALUE }, consumes = { MediaType.APPLICATION_JSON_VALUE })
+    @ApiOperation( value = "Set the settings that limit which tables are imported from the teiid source and refresh the schema")
+    @ApiResponses( value = {
+        @ApiResponse( code = 400, message = "A table pattern is not valid" ),
+        @ApiResponse( code = 404, message = "No teiid source could be found with the specified name" ),
+        @ApiResponse( code = 406, message = "Only JSON is returned by this operation" )
+    } )
+    public StatusObject setImportSettings(@ApiParam( value = "Name of the teiid source", required = true )
+                               @PathVariable(TEIID_SOURCE) final String teiidSourceName,
+                               @ApiParam( value = "The import settings", required = true )
+                               @RequestBody final SourceSchema.ImportSettings settings) throws Exception {
+        TeiidDataSource teiidSource = getMetadataInstance().getDataSource(teiidSourceName);
+        if (teiidSource == null) {
+            throw notFound( teiidSourceName );
+        }
+        try {
+            getExcludeTables(settings, Collections.emptySet());
+        } catch (PatternSyntaxException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        repositoryManager.runInTransaction(false, ()->{
+            SourceSchema schema = repositoryManager.findSchemaBySourceId(teiidSource.getSyndesisId());
+            if (schema == null) {
+                throw notFound( teiidSourceName );
+            }
+            schema.setImportSettings(settings);
+            return null;
+        });
+        deploySourceVdb(teiidSourceName, SourceDeploymentMode.REFRESH);
+        return new StatusObject( "Import settings saved, schema refresh submitted" ); //$NON-NLS-1$
+    }
+
+    /**
+     * Create the importer exclude pattern, which is matched against the source schema
+     * qualified table name
+     * @param settings
+     * @param referenced the qualified names of the tables referenced by view definitions
+     * @return the pattern or null if no table is excluded
+     * @throws PatternSyntaxException if a pattern is not valid
+     */
+    static String getExcludeTables(SourceSchema.ImportSettings settings, Collection<String> referenced) {
+        List<String> keep = new ArrayList<>();
+        for (String include : settings.getInclude()) {
+            Pattern.compile(include);
+            keep.add(include);
+        }
+        boolean restricted = !keep.isEmpty() || settings.isReferencedOnly();
+        if (settings.isReferencedOnly()) {
+            for (String name : referenced) {
+                keep.add(Pattern.quote(name));
+            }
+        }
+        List<String> exclude = new ArrayList<>();
+        for (String pattern : settings.getExclude()) {
+            Pattern.compile(pattern);
+            exclude.add(pattern);
+        }
+        if (restricted) {
+            //exclude anything not kept
+            exclude.add(keep.isEmpty() ? ".*" : "(?!(?:" + String.join("|", keep) + ")$).*"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        }
+        if (exclude.isEmpty()) {
+            return null;
+        }
+        return "(?:" + String.join(")|(?:", exclude) + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    /**
+     * @return the qualified names of the tables of the source referenced by view definitions
+     */
+    private Set<String> findReferencedTables(String teiidSourceName) throws KException {
+        List<String> tableNames = repositoryManager.findSourceTableNames(teiidSourceName);
+        Set<String> result = new HashSet<>();
+        if (tableNames.isEmpty()) {
+            return result;
+        }
+        //use the current schema to determine the source names
+        TeiidVdb current = getMetadataInstance().getVdb(getWorkspaceSourceVdbName(teiidSourceName));
+        Schema schema = current == null ? null : current.getSchema(teiidSourceName);
+        if (schema == null) {
+            return result;
+        }
+        for (String tableName : tableNames) {
+            Table table = schema.getTable(tableName);
+            String fqn = table == null ? null : table.getProperty(TABLE_OPTION_FQN, false);
+            if (fqn != null) {
+                result.add(getQualifiedName(fqn));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param fqn the fqn table option, such as schema=public/table=customer
+     * @return the table name qualified by the schema name, such as public.customer
+     */
+    static String getQualifiedName(String fqn) {
+        List<Pair<String, String>> segments = PathUtils.getOptions(fqn);
+        String name = segments.get(segments.size() - 1).getSecond();
+        for (Pair<String, String> segment : segments.subList(0, segments.size() - 1)) {
+            if (Schema.getTypeName().equalsIgnoreCase(segment.getFirst())) {
+                return segment.getSecond() + StringConstants.DOT + name;
+            }
+        }
+        return name;
+    }
+
     /**
      * @return the JSON representation of the schema collection (never <code>null</code>)
      * @throws Exception
@@ -467,11 +1230,16 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
         final List< RestSyndesisSourceStatus > statuses = new ArrayList<>();
 
         return repositoryManager.runInTransaction(true, ()->{
-            for (String teiidName : repositoryManager.findAllSchemaNames()) {
+            for (SourceSchemaState schemaState : repositoryManager.findAllSchemaStates()) {
+                String teiidName = schemaState.getName();
                 TeiidDataSource teiidSource = getMetadataInstance().getDataSource(teiidName);
                 RestSyndesisSourceStatus status = new RestSyndesisSourceStatus(teiidName);
                 if (teiidSource != null) {
-                    setSchemaStatus(teiidSource.getSyndesisId(), status);
+                    String schemaId = teiidSource.getSyndesisId();
+                    if (!Objects.equals(schemaId, schemaState.getSourceId())) {
+                        schemaState = repositoryManager.findSchemaStateBySourceId(schemaId);
+                    }
+                    setSchemaStatus(schemaId, schemaState, status);
                 }
 
                 // Name of vdb based on source name
@@ -509,7 +1277,7 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
         List<RestSourceSchema> srcSchemas = new ArrayList<>();
 
         TeiidVdb vdb = updatePreviewVdb(virtualization);
-        if (vdb == null || !vdb.hasLoaded()) {
+        if (!vdb.hasLoaded()) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
         }
 
@@ -539,9 +1307,11 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
     /**
      * Deploy / re-deploy a VDB to the metadata instance for the provided teiid data source.
      * @param teiidSource the teiidSource
+     * @param changedPaths the source table paths affected by the deployment, or null if unknown
      * @throws KException
      */
-    private void doDeploySourceVdb( TeiidDataSource teiidSource, SourceDeploymentMode sourceDeploymentMode) throws KException {
+    private void doDeploySourceVdb( TeiidDataSource teiidSource, SourceDeploymentMode sourceDeploymentMode,
+            Set<String> changedPaths) throws KException {
         assert( teiidSource != null );
 
         boolean replace = false;
@@ -563,7 +1333,7 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
         String vdbName = getWorkspaceSourceVdbName( teiidSource.getName() );
 
         if (sourceDeploymentMode == SourceDeploymentMode.REUSE_DDL
-                && schema.getDdl() == null) {
+                && schema.getState() == null) {
             //if the ddl doesn't already exist, don't do a deployment/save
             //the calling operation should be fail-fast
             return;
@@ -594,6 +1364,14 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
             } else {
                 try {
                     VDBMetaData vdb = generateSourceVdb(teiidSource, vdbName, ddl);
+                    SourceSchema.ImportSettings settings = schema.getImportSettings();
+                    if (ddl == null && settings != null) {
+                        String excludeTables = getExcludeTables(settings,
+                                settings.isReferencedOnly() ? findReferencedTables(teiidSource.getName()) : Collections.emptySet());
+                        if (excludeTables != null) {
+                            vdb.getModel(teiidSource.getName()).addProperty(IMPORTER_EXCLUDE_TABLES, excludeTables);
+                        }
+                    }
                     getMetadataInstance().deploy(vdb);
                 } catch (KException e) {
                     LOGGER.error("could not deploy source vdb", e); //$NON-NLS-1$
@@ -605,13 +1383,14 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
 
         if (ddl != null) {
             //this is the actual connection vdb, trigger a load of the preview vdbs
-            connectionExecutor.execute(()->{
-                try {
-                    refreshPreviewVdb();
-                } catch (Exception e) {
-                    LOGGER.error("could not refresh preview vdb", e); //$NON-NLS-1$
-                }
-            });
+            if (ddl.startsWith(FAILED_DDL)) {
+                //the source is effectively removed, only the views using it are affected
+                requestPreviewVdbRefresh(Collections.singleton(getSourcePath(teiidSource.getName())));
+            } else {
+                //if the changed tables are not known, such as for the first deployment of the
+                //source, then any preview may be affected
+                requestPreviewVdbRefresh(changedPaths);
+            }
         }
     }
 
@@ -667,7 +1446,7 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
         String vdbName = getWorkspaceSourceVdbName( dataSourceName );
         TeiidVdb vdb = getMetadataInstance().getVdb(vdbName);
         if (vdb == null) {
-            doDeploySourceVdb(dataSource, SourceDeploymentMode.REUSE_DDL);
+            doDeploySourceVdb(dataSource, SourceDeploymentMode.REUSE_DDL, null);
             vdb = getMetadataInstance().getVdb(vdbName);
         }
 
@@ -804,18 +1583,16 @@ public class MetadataService extends DvService implements ServiceVdbGenerator.Sc
 
     /**
      * Set the schema availability for the provided RestSyndesisSourceStatus
+     * @param schemaState the schema state, may be null
      * @param status the RestSyndesisSourceStatus
-     * @throws Exception if error occurs
      */
-    private void setSchemaStatus(String schemaId, final RestSyndesisSourceStatus status ) throws Exception {
-        // Get the workspace schema VDB
-        SourceSchema schema = repositoryManager.findSchemaBySourceId(schemaId);
+    private static void setSchemaStatus(String schemaId, SourceSchemaState schemaState, final RestSyndesisSourceStatus status ) {
         status.setId(schemaId);
 
-        if ( schema != null && schema.getDdl() != null) {
-            if (schema.getDdl().startsWith(FAILED_DDL)) {
+        if ( schemaState != null && schemaState.getState() != null) {
+            if (schemaState.getState() == SourceSchema.State.FAILED) {
                 status.setSchemaState( RestSyndesisSourceStatus.EntityState.FAILED );
-                String error = schema.getDdl().substring(FAILED_DDL.length());
+                String error = schemaState.getError();
                 if (error != null) {
                     status.setErrors(Arrays.asList(error));
                 }
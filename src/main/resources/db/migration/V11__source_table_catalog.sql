@@ -0,0 +1,13 @@
+--the table catalog may list many thousands of tables, so it is kept in its own table rather than read with every source schema
+--existing catalogs are not carried over, they are read again from the source when next requested
+CREATE TABLE source_table_catalog
+  (
+     schema_id   VARCHAR(64) NOT NULL,
+     table_index INTEGER NOT NULL,
+     table_name  VARCHAR(4000) NOT NULL,
+     PRIMARY KEY (schema_id, table_index),
+     FOREIGN KEY (schema_id) REFERENCES data_virtualization(id) ON DELETE CASCADE
+  );
+
+alter table data_virtualization add column table_catalog_read boolean not null default false;
+alter table data_virtualization drop column table_catalog;
@@ -0,0 +1,6 @@
+--the schema state allows for status checks without reading the ddl
+alter table data_virtualization add column schema_state VARCHAR(16);
+alter table data_virtualization add column schema_error VARCHAR(4000);
+
+update data_virtualization set schema_state = 'FAILED', schema_error = substring(ddl from 11 for 4000) where type = 's' and ddl like '--failed: %';
+update data_virtualization set schema_state = 'LOADED' where type = 's' and ddl is not null and schema_state is null;
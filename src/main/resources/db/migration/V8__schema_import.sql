@@ -0,0 +1,3 @@
+--the import settings limit which source tables are imported, the catalog lists all source tables
+alter table data_virtualization add column import_settings VARCHAR(4000);
+alter table data_virtualization add column table_catalog VARCHAR(4000000);
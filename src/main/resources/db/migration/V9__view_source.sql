@@ -0,0 +1,11 @@
+--the source tables referenced by each view, so that the views affected by a source change can be found directly
+CREATE TABLE view_source
+  (
+     view_id     VARCHAR(64) NOT NULL,
+     source_name VARCHAR(255) NOT NULL,
+     table_name  VARCHAR(255) NOT NULL,
+     PRIMARY KEY (view_id, source_name, table_name),
+     FOREIGN KEY (view_id) REFERENCES view_definition(id) ON DELETE CASCADE
+  );
+
+CREATE INDEX view_source_source_name ON view_source(source_name, table_name);
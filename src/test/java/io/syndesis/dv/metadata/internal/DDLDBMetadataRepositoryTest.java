@@ -0,0 +1,93 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.metadata.internal;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.teiid.adminapi.impl.ModelMetaData;
+import org.teiid.metadata.MetadataFactory;
+import org.teiid.metadata.Table;
+import org.teiid.query.metadata.SystemMetadata;
+import org.teiid.query.parser.QueryParser;
+
+import io.syndesis.dv.RepositoryManager;
+import io.syndesis.dv.model.EntityVersion;
+import io.syndesis.dv.model.SourceSchema;
+
+@SuppressWarnings("nls")
+public class DDLDBMetadataRepositoryTest {
+
+    private static MetadataFactory createFactory() {
+        ModelMetaData model = new ModelMetaData();
+        model.setName("source");
+        MetadataFactory factory = new MetadataFactory("vdb", "1", SystemMetadata.getInstance().getRuntimeTypeMap(), model);
+        factory.setParser(QueryParser.getQueryParser());
+        return factory;
+    }
+
+    private static EntityVersion version(String id, Long version) {
+        EntityVersion result = Mockito.mock(EntityVersion.class);
+        Mockito.when(result.getId()).thenReturn(id);
+        Mockito.when(result.getVersion()).thenReturn(version);
+        return result;
+    }
+
+    @Test
+    public void shouldCacheParsedSchema() throws Exception {
+        RepositoryManager repositoryManager = Mockito.mock(RepositoryManager.class);
+        SourceSchema schema = Mockito.mock(SourceSchema.class);
+        Mockito.when(schema.getId()).thenReturn("x");
+        Mockito.when(schema.getVersion()).thenReturn(1L);
+        Mockito.when(schema.getDdl()).thenReturn("create foreign table tbl (col string primary key, col1 integer) options (annotation 'hello');");
+        Mockito.when(repositoryManager.findSchemaBySourceId("id")).thenReturn(schema);
+        EntityVersion version = version("x", 1L);
+        Mockito.when(repositoryManager.findSchemaVersionBySourceId("id")).thenReturn(version);
+
+        DDLDBMetadataRepository repository = new DDLDBMetadataRepository(repositoryManager);
+        MetadataFactory factory = createFactory();
+        repository.loadMetadata(factory, null, null, "id");
+        assertEquals(1, repository.getCacheSize());
+
+        //should not read the schema again
+        factory = createFactory();
+        repository.loadMetadata(factory, null, null, "id");
+        Mockito.verify(repositoryManager, Mockito.times(1)).findSchemaBySourceId("id");
+        Table table = factory.getSchema().getTable("tbl");
+        assertEquals("hello", table.getAnnotation());
+        assertEquals(2, table.getColumns().size());
+        assertNotNull(table.getPrimaryKey());
+        assertSame(factory.getSchema(), table.getParent());
+        assertSame(factory.getDataTypes().get("integer"), table.getColumns().get(1).getDatatype());
+
+        //a new version should be read
+        version = version("x", 2L);
+        Mockito.when(repositoryManager.findSchemaVersionBySourceId("id")).thenReturn(version);
+        repository.loadMetadata(createFactory(), null, null, "id");
+        Mockito.verify(repositoryManager, Mockito.times(2)).findSchemaBySourceId("id");
+
+        //removed
+        Mockito.when(repositoryManager.findSchemaVersionBySourceId("id")).thenReturn(null);
+        factory = createFactory();
+        repository.loadMetadata(factory, null, null, "id");
+        assertTrue(factory.getSchema().getTables().isEmpty());
+        assertEquals(0, repository.getCacheSize());
+    }
+
+}
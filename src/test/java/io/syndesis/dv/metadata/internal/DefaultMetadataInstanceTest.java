@@ -21,13 +21,21 @@ package io.syndesis.dv.metadata.internal;
 import static org.junit.Assert.*;
 
 import java.io.ByteArrayInputStream;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Map;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
 import io.syndesis.dv.metadata.MetadataInstance.ValidationResult;
 import io.syndesis.dv.metadata.TeiidVdb;
 import io.syndesis.dv.metadata.internal.DefaultMetadataInstance.TeiidVdbImpl;
+import io.syndesis.dv.metadata.query.QSResult;
+import org.teiid.adminapi.impl.VDBMetaData;
 import org.teiid.adminapi.impl.VDBMetadataParser;
 import org.teiid.runtime.EmbeddedConfiguration;
 
@@ -50,6 +58,8 @@ public class DefaultMetadataInstanceTest {
 
     @After
     public void tearDown() {
+        metadataInstance.closeCursors();
+        metadataInstance.getConnectionPool().close();
         server.stop();
     }
 
@@ -120,4 +130,177 @@ public class DefaultMetadataInstanceTest {
         assertTrue(teiidVdb.hasValidationError("views", "tbl2", "table"));
     }
 
+    @Test
+    public void shouldPageFromCursor() throws Exception {
+        String vdb = "<vdb name=\"myservice\" version=\"1\">\n" +
+                "    <model visible=\"true\" name=\"accounts\" type=\"VIRTUAL\">\n" +
+                "      <metadata type=\"DDL\">create view tbl (col integer) as select 1 union all select 2 union all select 3 union all select 4 union all select 5;</metadata>" +
+                "    </model>    \n" +
+                "</vdb>";
+
+        metadataInstance.deploy(VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.getBytes("UTF-8"))));
+
+        QSResult result = metadataInstance.query("myservice", "select * from tbl order by col", 1, 2);
+        assertEquals(1, result.getColumns().size());
+        assertEquals(Arrays.asList(2), result.getRows().get(0).getRow());
+        assertEquals(Arrays.asList(3), result.getRows().get(1).getRow());
+        assertEquals(2, result.getRows().size());
+
+        //the next page should use the same cursor
+        result = metadataInstance.query("myservice", "select * from tbl order by col", 4, 2);
+        assertEquals(1, result.getRows().size());
+        assertEquals(Arrays.asList(5), result.getRows().get(0).getRow());
+
+        //past the end
+        result = metadataInstance.query("myservice", "select * from tbl order by col", 10, 2);
+        assertEquals(0, result.getRows().size());
+        assertEquals(1, metadataInstance.getQueryCursors().size());
+
+        //a redeploy should not use the old cursor
+        metadataInstance.deploy(VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.getBytes("UTF-8"))));
+        result = metadataInstance.query("myservice", "select * from tbl order by col", 0, 1);
+        assertEquals(Arrays.asList(1), result.getRows().get(0).getRow());
+        assertEquals(1, metadataInstance.getQueryCursors().size());
+
+        //no paging
+        result = metadataInstance.query("myservice", "select * from tbl", DefaultMetadataInstance.NO_OFFSET, DefaultMetadataInstance.NO_LIMIT);
+        assertEquals(5, result.getRows().size());
+    }
+
+    @Test
+    public void shouldCloseIdleCursors() throws Exception {
+        metadataInstance.closeCursors();
+        ReflectionTestUtils.setField(metadataInstance, "cursorTtlMillis", 2000L);
+        metadataInstance.init();
+
+        String vdb = "<vdb name=\"myservice\" version=\"1\">\n" +
+                "    <model visible=\"true\" name=\"accounts\" type=\"VIRTUAL\">\n" +
+                "      <metadata type=\"DDL\">create view tbl (col integer) as select 1 union all select 2;</metadata>" +
+                "    </model>    \n" +
+                "</vdb>";
+
+        metadataInstance.deploy(VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.getBytes("UTF-8"))));
+
+        metadataInstance.query("myservice", "select * from tbl", 0, 1);
+        assertEquals(1, metadataInstance.getQueryCursors().size());
+        Map<?, ?> cursors = (Map<?, ?>)ReflectionTestUtils.getField(metadataInstance.getQueryCursors(), "cursors");
+        Connection connection = (Connection)ReflectionTestUtils.getField(cursors.values().iterator().next(), "connection");
+        assertFalse(connection.isClosed());
+
+        //without any further queries the cursor and its connection should be released
+        for (int i = 0; i < 100 && metadataInstance.getQueryCursors().size() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, metadataInstance.getQueryCursors().size());
+        assertTrue(connection.isClosed());
+    }
+
+    @Test
+    public void shouldPoolConnections() throws Exception {
+        String vdb = "<vdb name=\"myservice\" version=\"1\">\n" +
+                "    <model visible=\"true\" name=\"accounts\" type=\"VIRTUAL\">\n" +
+                "      <metadata type=\"DDL\">create view tbl (col integer) as select 1;</metadata>" +
+                "    </model>    \n" +
+                "</vdb>";
+
+        metadataInstance.deploy(VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.getBytes("UTF-8"))));
+        TeiidConnectionPool pool = metadataInstance.getConnectionPool();
+
+        metadataInstance.query("myservice", "select * from tbl", DefaultMetadataInstance.NO_OFFSET, DefaultMetadataInstance.NO_LIMIT);
+        metadataInstance.query("myservice", "select * from tbl", DefaultMetadataInstance.NO_OFFSET, DefaultMetadataInstance.NO_LIMIT);
+        assertEquals(1, pool.getPoolCount());
+        assertEquals(2, pool.getConnectionsAcquired());
+        assertEquals(1, pool.getConnectionsCreated());
+        assertEquals(0.5, pool.getHitRate(), 0);
+
+        //a redeploy should discard the pool
+        metadataInstance.deploy(VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.getBytes("UTF-8"))));
+        assertEquals(0, pool.getPoolCount());
+
+        QSResult result = metadataInstance.query("myservice", "select * from tbl", DefaultMetadataInstance.NO_OFFSET, DefaultMetadataInstance.NO_LIMIT);
+        assertEquals(1, result.getRows().size());
+        assertEquals(1, pool.getPoolCount());
+    }
+
+    @Test
+    public void shouldNotPoolFailedConnections() throws Exception {
+        TeiidConnectionPool pool = metadataInstance.getConnectionPool();
+        try {
+            metadataInstance.getConnection("missing", "1");
+            fail();
+        } catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        }
+        assertEquals(0, pool.getPoolCount());
+    }
+
+    @Test
+    public void shouldUpdateViewsInPlace() throws Exception {
+        String vdb = "<vdb name=\"myservice\" version=\"1\">\n" +
+                "    <model visible=\"true\" name=\"accounts\" type=\"VIRTUAL\">\n" +
+                "      <metadata type=\"DDL\">create view tbl (col integer) as select 1; create view tbl2 (col integer) as select col from tbl;</metadata>" +
+                "    </model>    \n" +
+                "</vdb>";
+
+        metadataInstance.deploy(VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.getBytes("UTF-8"))));
+        VDBMetaData deployed = metadataInstance.getVdb("myservice").getVDBMetaData();
+
+        VDBMetaData updated = VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.replace("select 1", "select 2").getBytes("UTF-8")));
+        updated.addProperty("version", "2");
+        assertTrue(metadataInstance.updateViews(updated));
+
+        TeiidVdbImpl teiidVdb = metadataInstance.getVdb("myservice");
+        assertSame(deployed, teiidVdb.getVDBMetaData());
+        assertEquals("2", teiidVdb.getPropertyValue("version"));
+        QSResult result = metadataInstance.query("myservice", "select * from tbl2", DefaultMetadataInstance.NO_OFFSET, DefaultMetadataInstance.NO_LIMIT);
+        assertEquals(Arrays.asList(2), result.getRows().get(0).getRow());
+
+        //a column change requires a redeploy
+        updated = VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.replace("(col integer) as select 1", "(col string) as select 'a'").getBytes("UTF-8")));
+        assertFalse(metadataInstance.updateViews(updated));
+
+        //even if the definition is still valid
+        updated = VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.replace("(col integer) as select 1", "(col long) as select 1").getBytes("UTF-8")));
+        assertFalse(metadataInstance.updateViews(updated));
+
+        //as does an invalid definition
+        updated = VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.replace("select 1", "select x").getBytes("UTF-8")));
+        assertFalse(metadataInstance.updateViews(updated));
+    }
+
+    @Test
+    public void shouldNotUpdateViewsWithStaleImports() throws Exception {
+        String imported = "<vdb name=\"imported\" version=\"1\">\n" +
+                "    <model visible=\"true\" name=\"source\" type=\"VIRTUAL\">\n" +
+                "      <metadata type=\"DDL\">create view t (col integer) as select 1;</metadata>" +
+                "    </model>    \n" +
+                "</vdb>";
+        String vdb = "<vdb name=\"myservice\" version=\"1\">\n" +
+                "    <import-vdb name=\"imported\" version=\"1\"/>\n" +
+                "    <model visible=\"true\" name=\"accounts\" type=\"VIRTUAL\">\n" +
+                "      <metadata type=\"DDL\">create view tbl (col integer) as select col from t;</metadata>" +
+                "    </model>    \n" +
+                "</vdb>";
+
+        metadataInstance.deploy(VDBMetadataParser.unmarshell(new ByteArrayInputStream(imported.getBytes("UTF-8"))));
+        metadataInstance.deploy(VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.getBytes("UTF-8"))));
+        assertTrue(metadataInstance.getVdb("myservice").hasCurrentImports());
+
+        VDBMetaData updated = VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.replace("select col", "select col + 1").getBytes("UTF-8")));
+        assertTrue(metadataInstance.updateViews(updated));
+
+        //the imported vdb now has a new model, which the deployed vdb does not have
+        metadataInstance.deploy(VDBMetadataParser.unmarshell(new ByteArrayInputStream(imported.replace("</vdb>",
+                "<model visible=\"true\" name=\"other\" type=\"VIRTUAL\"><metadata type=\"DDL\">create view o (col integer) as select 2;</metadata></model></vdb>").getBytes("UTF-8"))));
+        assertFalse(metadataInstance.getVdb("myservice").hasCurrentImports());
+
+        updated = VDBMetadataParser.unmarshell(new ByteArrayInputStream(vdb.replace("select col from t", "select col from o").getBytes("UTF-8")));
+        assertFalse(metadataInstance.updateViews(updated));
+
+        //once redeployed the imports are current
+        metadataInstance.deploy(updated);
+        assertTrue(metadataInstance.getVdb("myservice").hasCurrentImports());
+        assertNotNull(metadataInstance.getVdb("myservice").getSchema("other"));
+    }
+
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.teiid.core.util.ObjectConverterUtil;
+
+@SuppressWarnings("nls")
+public class BuildContextWriterTest {
+
+    private static final String LONG_PATH = "src/main/java/io/integration/a/very/long/package/name/that/goes/on/and/on/DataSourcesWithAVeryLongName.java";
+
+    private static void writeContents(BuildContextWriter writer) throws IOException {
+        writer.addEntry("pom.xml", "<project/>");
+        writer.addEntry("src/main/resources/x-vdb.xml", new byte[600], 0, 600);
+        writer.addEntry(LONG_PATH, "class x {}");
+    }
+
+    /**
+     * @return the names of the entries, with the header checksums and sizes verified
+     */
+    private static List<String> readNames(byte[] tar) {
+        assertEquals(0, tar.length % 512);
+        List<String> names = new ArrayList<>();
+        int offset = 0;
+        while (tar[offset] != 0) {
+            long checksum = 0;
+            for (int i = 0; i < 512; i++) {
+                checksum += (i >= 148 && i < 156) ? ' ' : tar[offset + i] & 0xff;
+            }
+            assertEquals(checksum, Long.parseLong(field(tar, offset + 148, 7), 8));
+            assertEquals("ustar", field(tar, offset + 257, 6));
+            String prefix = field(tar, offset + 345, 155);
+            String name = field(tar, offset + 0, 100);
+            names.add(prefix.isEmpty() ? name : prefix + "/" + name);
+            long size = Long.parseLong(field(tar, offset + 124, 12), 8);
+            offset += 512 + (int)((size + 511) / 512 * 512);
+        }
+        //end of archive
+        assertEquals(offset + 1024, tar.length);
+        return names;
+    }
+
+    private static String field(byte[] tar, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && tar[end] != 0) {
+            end++;
+        }
+        return new String(tar, offset, end - offset, StandardCharsets.UTF_8).trim();
+    }
+
+    @Test public void testWrite() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (BuildContextWriter writer = new BuildContextWriter(baos)) {
+            writeContents(writer);
+            writer.finish();
+        }
+        List<String> names = readNames(baos.toByteArray());
+        assertEquals("pom.xml", names.get(0));
+        assertEquals("src/", names.get(1));
+        assertEquals("src/main/resources/x-vdb.xml", names.get(4));
+        assertEquals(LONG_PATH, names.get(names.size() - 1));
+    }
+
+    @Test public void testStream() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (BuildContextWriter writer = new BuildContextWriter(baos)) {
+                writeContents(writer);
+                writer.finish();
+            }
+            //the pipe is smaller than the contents
+            try (InputStream is = BuildContextWriter.stream(executor, 512, BuildContextWriterTest::writeContents)) {
+                byte[] streamed = ObjectConverterUtil.convertToByteArray(is);
+                //only the modification times may differ
+                assertEquals(readNames(baos.toByteArray()), readNames(streamed));
+            }
+
+            try (InputStream is = BuildContextWriter.stream(executor, 512, writer -> {
+                writeContents(writer);
+                throw new IOException("failed");
+            })) {
+                ObjectConverterUtil.convertToByteArray(is);
+                fail();
+            } catch (IOException e) {
+                assertEquals("failed", e.getCause().getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
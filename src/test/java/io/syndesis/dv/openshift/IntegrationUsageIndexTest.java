@@ -0,0 +1,109 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SuppressWarnings("nls")
+public class IntegrationUsageIndexTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static String integration(String id, String name, String... connectionIds) {
+        StringBuilder steps = new StringBuilder();
+        for (String connectionId : connectionIds) {
+            if (steps.length() > 0) {
+                steps.append(",");
+            }
+            steps.append("{\"connection\":{\"id\":\"").append(connectionId).append("\"}}");
+        }
+        return "{\"id\":\"" + id + "\",\"tags\":[\"x\"],\"name\":\"" + name
+                + "\",\"flows\":[{\"name\":{},\"steps\":[" + steps + ",{\"action\":{\"connection\":{\"id\":\"other\"}}}]}]}";
+    }
+
+    private static JsonParser json(String value) throws Exception {
+        return MAPPER.getFactory().createParser(value);
+    }
+
+    @Test public void testIndex() throws Exception {
+        IntegrationUsageIndex index = new IntegrationUsageIndex();
+        assertFalse(index.isLoaded());
+        assertTrue(index.getIntegrations("c1").isEmpty());
+
+        //events before a load are ignored
+        index.update("i3", IntegrationUsageIndex.read(json(integration("i3", "three", "c1"))));
+        assertFalse(index.isLoaded());
+
+        index.load(index.beginLoad(), IntegrationUsageIndex.readList(json("{\"kind\":{\"a\":[1]},\"items\":[" + integration("i1", "one", "c1", "c2", "c1") + ","
+                + integration("i2", "two", "c2") + "],\"totalCount\":2}")));
+        assertTrue(index.isLoaded());
+        assertEquals(Arrays.asList("one"), index.getIntegrations("c1"));
+        assertEquals(2, index.getIntegrations("c2").size());
+        //only step connections are used
+        assertTrue(index.getIntegrations("other").isEmpty());
+
+        index.update("i2", IntegrationUsageIndex.read(json(integration("i2", "two", "c3"))));
+        assertEquals(Arrays.asList("one"), index.getIntegrations("c2"));
+        assertEquals(Arrays.asList("two"), index.getIntegrations("c3"));
+
+        index.remove("i1");
+        assertEquals(Collections.emptyList(), index.getIntegrations("c1"));
+
+        index.invalidate();
+        assertFalse(index.isLoaded());
+        assertTrue(index.getIntegrations("c3").isEmpty());
+    }
+
+    @Test public void testChangesWhileLoading() throws Exception {
+        IntegrationUsageIndex index = new IntegrationUsageIndex();
+        assertFalse(index.isTracking());
+
+        long generation = index.beginLoad();
+        assertTrue(index.isTracking());
+        assertFalse(index.isLoaded());
+
+        //changes made after the list was fetched take precedence
+        index.update("i2", IntegrationUsageIndex.read(json(integration("i2", "two", "c3"))));
+        index.remove("i1");
+        assertTrue(index.getIntegrations("c3").isEmpty());
+
+        assertTrue(index.load(generation, IntegrationUsageIndex.readList(json("{\"items\":[" + integration("i1", "one", "c1") + ","
+                + integration("i2", "two", "c2") + "]}"))));
+        assertTrue(index.isLoaded());
+        assertTrue(index.getIntegrations("c1").isEmpty());
+        assertTrue(index.getIntegrations("c2").isEmpty());
+        assertEquals(Arrays.asList("two"), index.getIntegrations("c3"));
+
+        //a load that was invalidated while fetching is discarded
+        index.invalidate();
+        generation = index.beginLoad();
+        index.invalidate();
+        assertFalse(index.isTracking());
+        assertFalse(index.load(generation, IntegrationUsageIndex.readList(json("{\"items\":[" + integration("i1", "one", "c1") + "]}"))));
+        assertFalse(index.isLoaded());
+    }
+
+}
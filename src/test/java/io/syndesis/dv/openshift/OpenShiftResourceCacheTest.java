@@ -0,0 +1,126 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import io.fabric8.kubernetes.api.model.ListMeta;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.ReplicationControllerList;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.Watcher.Action;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.Watchable;
+import io.fabric8.openshift.api.model.Build;
+import io.fabric8.openshift.api.model.BuildList;
+import io.fabric8.openshift.api.model.DeploymentConfig;
+import io.fabric8.openshift.api.model.DeploymentConfigList;
+import io.fabric8.openshift.api.model.RouteList;
+
+@SuppressWarnings({"nls", "unchecked"})
+public class OpenShiftResourceCacheTest {
+
+    private static Build build(String name, String application) {
+        Build build = new Build();
+        build.setMetadata(new ObjectMetaBuilder().withName(name).withResourceVersion("1")
+                .addToLabels(OpenShiftResourceCache.APPLICATION, application).build());
+        return build;
+    }
+
+    private static <T, L> FilterWatchListDeletable<T, L, Boolean, Watch, Watcher<T>> mockOperation(L list) {
+        FilterWatchListDeletable<T, L, Boolean, Watch, Watcher<T>> operation = Mockito.mock(FilterWatchListDeletable.class);
+        Mockito.when(operation.list()).thenReturn(list);
+        Watchable<Watch, Watcher<T>> watchable = Mockito.mock(Watchable.class);
+        Mockito.when(watchable.watch(Mockito.any())).thenReturn(Mockito.mock(Watch.class));
+        Mockito.when(operation.withResourceVersion(Mockito.any())).thenReturn(watchable);
+        return operation;
+    }
+
+    private static List<String> names(List<Build> builds) {
+        return builds.stream().map(b -> b.getMetadata().getName()).collect(Collectors.toList());
+    }
+
+    @Test public void testEvents() throws Exception {
+        BuildList buildList = new BuildList();
+        buildList.setMetadata(new ListMeta());
+        buildList.setItems(new ArrayList<>(Arrays.asList(build("b2", "dv-x"), build("b1", "dv-x"), build("b3", "dv-y"))));
+        FilterWatchListDeletable<Build, BuildList, Boolean, Watch, Watcher<Build>> builds = mockOperation(buildList);
+
+        DeploymentConfigList dcList = new DeploymentConfigList();
+        dcList.setMetadata(new ListMeta());
+        FilterWatchListDeletable<DeploymentConfig, DeploymentConfigList, Boolean, Watch, Watcher<DeploymentConfig>> dcs = mockOperation(dcList);
+
+        ReplicationControllerList rcList = new ReplicationControllerList();
+        rcList.setMetadata(new ListMeta());
+
+        RouteList routeList = new RouteList();
+        routeList.setMetadata(new ListMeta());
+
+        List<String> changes = Collections.synchronizedList(new ArrayList<>());
+        try (OpenShiftResourceCache cache = new OpenShiftResourceCache(builds, dcs,
+                mockOperation(rcList), mockOperation(routeList), changes::add, 100)) {
+            cache.start();
+            for (int i = 0; i < 100 && !cache.isSynced(); i++) {
+                Thread.sleep(50);
+            }
+            assertTrue(cache.isSynced());
+
+            assertEquals(3, changes.size());
+            assertEquals("b1", cache.getBuilds("dv-x").get(0).getMetadata().getName());
+            assertEquals(2, cache.getBuilds("dv-x").size());
+            assertTrue(cache.getBuilds("dv-z").isEmpty());
+
+            ArgumentCaptor<Watcher<DeploymentConfig>> watcher = ArgumentCaptor.forClass(Watcher.class);
+            Mockito.verify(dcs.withResourceVersion(null)).watch(watcher.capture());
+
+            long generation = cache.getGeneration();
+            DeploymentConfig dc = new DeploymentConfig();
+            dc.setMetadata(new ObjectMetaBuilder().withName("dv-x")
+                    .addToLabels(OpenShiftResourceCache.APPLICATION, "dv-x").build());
+            watcher.getValue().eventReceived(Action.ADDED, dc);
+
+            assertSame(dc, cache.getDeploymentConfig("dv-x"));
+            assertEquals("dv-x", changes.get(3));
+            assertNotEquals(generation, cache.getGeneration());
+
+            watcher.getValue().eventReceived(Action.DELETED, dc);
+            assertNull(cache.getDeploymentConfig("dv-x"));
+
+            //the application index follows label changes and deletes
+            ArgumentCaptor<Watcher<Build>> buildWatcher = ArgumentCaptor.forClass(Watcher.class);
+            Mockito.verify(builds.withResourceVersion(null)).watch(buildWatcher.capture());
+            buildWatcher.getValue().eventReceived(Action.MODIFIED, build("b1", "dv-y"));
+            assertEquals(1, cache.getBuilds("dv-x").size());
+            assertEquals(Arrays.asList("b1", "b3"), names(cache.getBuilds("dv-y")));
+            buildWatcher.getValue().eventReceived(Action.DELETED, build("b2", "dv-x"));
+            assertTrue(cache.getBuilds("dv-x").isEmpty());
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import io.syndesis.dv.openshift.S2ITemplates.Template;
+
+@SuppressWarnings("nls")
+public class S2ITemplatesTest {
+
+    @Test public void testRender() {
+        Template t = S2ITemplates.compile("class {{name}} { {{name}}() {} } {{other}}", "{{", "}}");
+
+        Map<String, String> values = new HashMap<>();
+        values.put("name", "x");
+        values.put("other", "");
+        assertEquals("class x { x() {} } ", t.render(values));
+    }
+
+    @Test public void testLiterals() {
+        Template t = S2ITemplates.compile("<!-- a comment --><a><!--a--></a><!--b--><!--", "<!--", "-->");
+
+        assertEquals("<!-- a comment --><a>1</a><!--b--><!--", t.render(Collections.singletonMap("a", "1")));
+        assertEquals("{}{{", S2ITemplates.compile("{}{{", "{{", "}}").render(Collections.emptyMap()));
+    }
+
+    @Test public void testLoad() throws Exception {
+        S2ITemplates templates = new S2ITemplates();
+
+        String ds = templates.render(S2ITemplates.MONGODB, Collections.singletonMap("dsName", "mine"));
+        assertTrue(ds.contains("public class DataSourcesmine {"));
+        assertTrue(ds.contains("package {{packageName}};"));
+        assertTrue(templates.getResource(S2ITemplates.APPLICATION_JAVA).length > 0);
+    }
+
+}
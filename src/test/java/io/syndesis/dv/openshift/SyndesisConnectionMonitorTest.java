@@ -0,0 +1,70 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import io.syndesis.dv.openshift.SyndesisConnectionMonitor.EventMsg;
+import io.syndesis.dv.server.DvConfigurationProperties;
+
+@SuppressWarnings("nls")
+public class SyndesisConnectionMonitorTest {
+
+    private static EventMsg event(String id, EventMsg.Type action) {
+        EventMsg event = new EventMsg();
+        event.setKind("connection");
+        event.setId(id);
+        event.setAction(action);
+        return event;
+    }
+
+    @Test public void testCoalesceConnectionEvents() throws Exception {
+        SyndesisConnectionSynchronizer synchronizer = Mockito.mock(SyndesisConnectionSynchronizer.class);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        DvConfigurationProperties config = new DvConfigurationProperties();
+        config.setConnectionEventWindow(200);
+        SyndesisConnectionMonitor monitor = new SyndesisConnectionMonitor(synchronizer, executor, config);
+
+        monitor.coalesceConnectionEvent(event("a", EventMsg.Type.created));
+        monitor.coalesceConnectionEvent(event("b", EventMsg.Type.updated));
+        for (int i = 0; i < 5; i++) {
+            monitor.coalesceConnectionEvent(event("a", EventMsg.Type.updated));
+        }
+        monitor.coalesceConnectionEvent(event("b", EventMsg.Type.deleted));
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        ArgumentCaptor<EventMsg> events = ArgumentCaptor.forClass(EventMsg.class);
+        Mockito.verify(synchronizer, Mockito.times(2)).handleConnectionEvent(events.capture());
+        List<EventMsg> handled = events.getAllValues();
+        assertEquals("a", handled.get(0).getId());
+        assertEquals(EventMsg.Type.created, handled.get(0).getAction());
+        assertEquals("b", handled.get(1).getId());
+        assertEquals(EventMsg.Type.deleted, handled.get(1).getAction());
+    }
+
+}
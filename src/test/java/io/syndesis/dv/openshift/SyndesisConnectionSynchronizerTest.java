@@ -0,0 +1,138 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.boot.test.rule.OutputCapture;
+
+import io.syndesis.dv.KException;
+import io.syndesis.dv.RepositoryManager;
+import io.syndesis.dv.datasources.DefaultSyndesisDataSource;
+import io.syndesis.dv.metadata.TeiidDataSource;
+import io.syndesis.dv.server.DvConfigurationProperties;
+import io.syndesis.dv.server.endpoint.MetadataService;
+import io.syndesis.dv.server.endpoint.MetadataService.SourceDeploymentMode;
+
+@SuppressWarnings("nls")
+public class SyndesisConnectionSynchronizerTest {
+
+    @Rule
+    public OutputCapture output = new OutputCapture();
+
+    private TeiidOpenShiftClient client;
+    private MetadataService metadataService;
+    private RepositoryManager repositoryManager;
+    private SyndesisConnectionSynchronizer synchronizer;
+
+    @Before
+    public void setup() {
+        client = Mockito.mock(TeiidOpenShiftClient.class);
+        metadataService = Mockito.mock(MetadataService.class);
+        repositoryManager = Mockito.mock(RepositoryManager.class);
+        DvConfigurationProperties config = new DvConfigurationProperties();
+        config.setSyncThreads(3);
+        synchronizer = new SyndesisConnectionSynchronizer(client, metadataService, repositoryManager, config);
+    }
+
+    @After
+    public void tearDown() {
+        synchronizer.shutdown();
+    }
+
+    private static DefaultSyndesisDataSource source(String name) {
+        DefaultSyndesisDataSource sds = new DefaultSyndesisDataSource();
+        sds.setId(name + "-id");
+        sds.setSyndesisName(name);
+        sds.setTeiidName(name);
+        return sds;
+    }
+
+    private static TeiidDataSource existing(String name) {
+        TeiidDataSource tds = Mockito.mock(TeiidDataSource.class);
+        Mockito.when(tds.getSyndesisId()).thenReturn(name + "-id");
+        return tds;
+    }
+
+    @Test public void testSynchronizeConnectionsInParallel() throws Exception {
+        DefaultSyndesisDataSource slow = source("slow");
+        DefaultSyndesisDataSource failedCreate = source("failedCreate");
+        DefaultSyndesisDataSource failedLookup = source("failedLookup");
+        DefaultSyndesisDataSource failedDeploy = source("failedDeploy");
+        DefaultSyndesisDataSource stale = source("stale");
+
+        Mockito.doReturn(Arrays.asList(existing("slow"), existing("stale"))).when(client).getDataSources();
+        Mockito.when(client.getSyndesisDataSourceById("stale-id", false)).thenReturn(stale);
+
+        Set<String> added = ConcurrentHashMap.newKeySet();
+        Mockito.doAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            if (name.equals("slow")) {
+                Thread.sleep(500);
+            }
+            if (name.equals("failedDeploy")) {
+                throw new KException("deploy failed");
+            }
+            added.add(name);
+            return null;
+        }).when(metadataService).deploySourceVdb(any(), any());
+        Mockito.doThrow(new KException("create failed")).when(client).createDataSource(failedCreate);
+        Mockito.when(repositoryManager.findDataVirtualizationBySourceId("failedLookup-id"))
+                .thenThrow(new IllegalStateException("lookup failed"));
+        Mockito.when(metadataService.deleteSchema(stale)).thenAnswer(invocation -> {
+            assertEquals(Collections.singleton("slow"), added);
+            return true;
+        });
+
+        synchronizer.synchronizeConnections(false,
+                Arrays.asList(slow, failedCreate, failedLookup, failedDeploy));
+
+        //every addition has completed by the time synchronization returns
+        assertEquals(Collections.singleton("slow"), added);
+        Mockito.verify(metadataService).deploySourceVdb("slow", SourceDeploymentMode.MAKE_LIVE);
+        Mockito.verify(metadataService).deploySourceVdb("failedDeploy", SourceDeploymentMode.MAKE_LIVE);
+        Mockito.verify(metadataService, Mockito.never()).deploySourceVdb(eq("failedCreate"), any());
+
+        //only the connection no longer in syndesis is removed, after the additions
+        InOrder inOrder = Mockito.inOrder(metadataService, client);
+        inOrder.verify(metadataService).deploySourceVdb("slow", SourceDeploymentMode.MAKE_LIVE);
+        inOrder.verify(metadataService).deleteSchema(stale);
+        inOrder.verify(client).deleteDataSource(stale);
+        Mockito.verify(client).deleteDataSource(Mockito.any());
+
+        //each failure is reported against its own connection
+        String log = output.toString();
+        assertTrue(log, log.contains("Error creating data source for failedCreate"));
+        assertTrue(log, log.contains("Error synchronizing connection failedLookup"));
+        assertTrue(log, log.contains("Failed to fetch metadata for connection failedDeploy"));
+    }
+
+}
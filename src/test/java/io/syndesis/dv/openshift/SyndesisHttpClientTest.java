@@ -0,0 +1,96 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import static org.junit.Assert.*;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.http.client.HttpResponseException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpServer;
+
+@SuppressWarnings({"nls", "restriction"})
+public class SyndesisHttpClientTest {
+
+    private HttpServer server;
+    private String url;
+
+    @Before public void setup() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/items", exchange -> {
+            byte[] bytes = "{\"items\":[{\"name\":\"a\"},{\"name\":\"b\"}]}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @After public void teardown() {
+        server.stop(0);
+    }
+
+    @Test public void testPooledRequests() throws Exception {
+        try (SyndesisHttpClient client = new SyndesisHttpClient()) {
+            JsonNode root = client.get(url + "/items", SyndesisHttpClient.TREE);
+            assertEquals(2, root.get("items").size());
+
+            //stream without building a tree
+            int count = client.get(url + "/items", parser -> {
+                int names = 0;
+                while (parser.nextToken() != null) {
+                    if ("name".equals(parser.getCurrentName())) {
+                        names++;
+                        parser.nextToken();
+                    }
+                }
+                return names;
+            });
+            assertEquals(2, count);
+
+            //the connection was returned to the pool and reused
+            assertEquals(0, client.getLeasedConnections());
+            assertEquals(1, client.getAvailableConnections());
+            assertEquals(2, client.getRequests());
+
+            try {
+                client.get(url + "/missing", SyndesisHttpClient.TREE);
+                fail();
+            } catch (HttpResponseException e) {
+                assertEquals(404, e.getStatusCode());
+            }
+            assertEquals(1, client.getFailures());
+            assertEquals(0, client.getLeasedConnections());
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.dv.openshift;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SuppressWarnings("nls")
+public class SyndesisJsonTest {
+
+    private static JsonParser json(String value) throws Exception {
+        return new ObjectMapper().getFactory().createParser(value);
+    }
+
+    @Test public void testReadConnections() throws Exception {
+        String connection = "{\"connector\":{\"id\":\"x\",\"icon\":\"data:...\",\"configuredProperties\":{\"a\":\"b\"}},"
+                + "\"id\":\"1\",\"name\":\"pg\",\"connectorId\":\"sql\","
+                + "\"configuredProperties\":{\"url\":\"jdbc:postgresql://host/db\",\"port\":5432,\"ssl\":false,\"extra\":{\"nested\":1}}}";
+        List<SyndesisJson.Connection> result = new ArrayList<>();
+        SyndesisJson.forEachItem(json("{\"items\":[" + connection + ",{\"name\":\"other\"}],\"totalCount\":2}"),
+                p -> result.add(SyndesisJson.readConnection(p)));
+
+        assertEquals(2, result.size());
+        SyndesisJson.Connection first = result.get(0);
+        assertEquals("1", first.id);
+        assertEquals("pg", first.name);
+        assertEquals("sql", first.connectorId);
+        assertEquals(4, first.configuredProperties.size());
+        assertEquals("jdbc:postgresql://host/db", first.configuredProperties.get("url"));
+        assertEquals("5432", first.configuredProperties.get("port"));
+        assertEquals("false", first.configuredProperties.get("ssl"));
+        assertEquals("", first.configuredProperties.get("extra"));
+
+        SyndesisJson.Connection second = result.get(1);
+        assertNull(second.id);
+        assertEquals("other", second.name);
+        assertTrue(second.configuredProperties.isEmpty());
+    }
+
+    @Test public void testReadSingleConnection() throws Exception {
+        SyndesisJson.Connection connection = SyndesisJson.readConnection(json("{\"id\":\"2\",\"connectorId\":\"mongodb3\"}"));
+        assertEquals("2", connection.id);
+        assertEquals("mongodb3", connection.connectorId);
+    }
+
+}
@@ -20,9 +20,18 @@ package io.syndesis.dv.openshift;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
 import io.syndesis.dv.datasources.DefaultSyndesisDataSource;
 import io.syndesis.dv.metadata.MetadataInstance;
 import io.syndesis.dv.server.DvConfigurationProperties;
@@ -30,6 +39,8 @@ import io.syndesis.dv.server.DvConfigurationProperties;
 import org.mockito.Mockito;
 
 import io.syndesis.dv.RepositoryManager;
+import io.syndesis.dv.openshift.BuildStatus.RouteStatus;
+import io.syndesis.dv.openshift.BuildStatus.Status;
 
 public class TeiidOpenShiftClientTest {
 
@@ -48,7 +59,7 @@ public class TeiidOpenShiftClientTest {
         RepositoryManager mock = Mockito.mock(MockRepositoryManager.class);
         Mockito.when(mock.runInTransaction(Mockito.anyBoolean(), Mockito.any())).thenCallRealMethod();
 
-        TeiidOpenShiftClient client = new TeiidOpenShiftClient(metadata, new EncryptionComponent("blah"), new DvConfigurationProperties(), mock, null);
+        TeiidOpenShiftClient client = new TeiidOpenShiftClient(metadata, new EncryptionComponent("blah"), new DvConfigurationProperties(), mock, null, new SyndesisHttpClient());
 
         DefaultSyndesisDataSource dsd = new DefaultSyndesisDataSource();
 
@@ -65,4 +76,156 @@ public class TeiidOpenShiftClientTest {
         assertTrue(name.startsWith("syS_"));
     }
 
+    private static TeiidOpenShiftClient createClient(DvConfigurationProperties config) {
+        return new TeiidOpenShiftClient(Mockito.mock(MetadataInstance.class), new EncryptionComponent("blah"),
+                config, Mockito.mock(RepositoryManager.class), null, new SyndesisHttpClient());
+    }
+
+    private static ScheduledThreadPoolExecutor getWorkExecutor(TeiidOpenShiftClient client) {
+        return (ScheduledThreadPoolExecutor)ReflectionTestUtils.getField(client, "workExecutor");
+    }
+
+    @Test public void testPublishThreads() throws Exception {
+        DvConfigurationProperties config = new DvConfigurationProperties();
+        assertEquals(2, getWorkExecutor(createClient(config)).getCorePoolSize());
+
+        config.setPublishThreads(5);
+        assertEquals(5, getWorkExecutor(createClient(config)).getCorePoolSize());
+
+        config.setPublishThreads(0);
+        assertEquals(1, getWorkExecutor(createClient(config)).getCorePoolSize());
+    }
+
+    /**
+     * Run the next scheduled monitor task in place of the executor
+     */
+    private static RunnableScheduledFuture<?> runNext(ScheduledThreadPoolExecutor executor) {
+        RunnableScheduledFuture<?> next = (RunnableScheduledFuture<?>)executor.getQueue().peek();
+        assertNotNull(next);
+        assertTrue(executor.remove(next));
+        next.run();
+        return next;
+    }
+
+    @Test public void testMonitorRequeue() throws Exception {
+        TeiidOpenShiftClient client = createClient(new DvConfigurationProperties());
+        ScheduledThreadPoolExecutor executor = getWorkExecutor(client);
+        try {
+            BuildStatus work = new BuildStatus("dv-x");
+            work.setStatus(Status.DELETE_SUBMITTED);
+            work.setLastUpdated();
+            ReflectionTestUtils.invokeMethod(client, "monitor", work);
+
+            //the first run waits for the interval since the last update
+            assertEquals(1, executor.getQueue().size());
+            RunnableScheduledFuture<?> scheduled = (RunnableScheduledFuture<?>)executor.getQueue().peek();
+            assertTrue(scheduled.getDelay(TimeUnit.MILLISECONDS) > 2000);
+
+            //still in progress, so it is rescheduled rather than resubmitted
+            runNext(executor);
+            assertEquals(1, executor.getQueue().size());
+            RunnableScheduledFuture<?> requeued = (RunnableScheduledFuture<?>)executor.getQueue().peek();
+            assertNotSame(scheduled, requeued);
+            assertTrue(requeued.getDelay(TimeUnit.MILLISECONDS) > 2000);
+            assertSame(work, client.getVirtualizationStatus("x"));
+
+            //once complete it is no longer scheduled
+            work.setStatus(Status.FAILED);
+            runNext(executor);
+            assertTrue(executor.getQueue().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test public void testShutdownClosesResourceCache() throws Exception {
+        TeiidOpenShiftClient client = createClient(new DvConfigurationProperties());
+        OpenShiftResourceCache cache = Mockito.mock(OpenShiftResourceCache.class);
+        ReflectionTestUtils.setField(client, "resourceCache", cache);
+
+        client.shutdown();
+        Mockito.verify(cache).close();
+        assertNull(ReflectionTestUtils.getField(client, "resourceCache"));
+
+        //a second shutdown has nothing to close
+        client.shutdown();
+        Mockito.verify(cache, Mockito.times(1)).close();
+    }
+
+    @Test public void testInFlightIndex() throws Exception {
+        TeiidOpenShiftClient client = createClient(new DvConfigurationProperties());
+        ScheduledThreadPoolExecutor executor = getWorkExecutor(client);
+        @SuppressWarnings("unchecked")
+        Map<String, BuildStatus> inFlight = (Map<String, BuildStatus>)ReflectionTestUtils.getField(client, "inFlight");
+        try {
+            BuildStatus first = new BuildStatus("dv-x");
+            first.setStatus(Status.DELETE_SUBMITTED);
+            ReflectionTestUtils.invokeMethod(client, "monitor", first);
+            BuildStatus other = new BuildStatus("dv-y");
+            other.setStatus(Status.DELETE_SUBMITTED);
+            ReflectionTestUtils.invokeMethod(client, "monitor", other);
+
+            assertSame(first, client.getVirtualizationStatus("x"));
+            assertSame(other, client.getVirtualizationStatus("Y"));
+
+            //a newer job for the same virtualization replaces the old
+            BuildStatus second = new BuildStatus("dv-x");
+            second.setStatus(Status.DELETE_SUBMITTED);
+            ReflectionTestUtils.invokeMethod(client, "monitor", second);
+            assertSame(second, client.getVirtualizationStatus("x"));
+            assertEquals(2, inFlight.size());
+
+            //completing the old job must not remove the newer one
+            first.setStatus(Status.CANCELLED);
+            second.setStatus(Status.FAILED);
+            for (int i = 0; i < 3; i++) {
+                runNext(executor);
+            }
+            assertEquals(Collections.singletonMap("dv-y", other), inFlight);
+
+            other.setStatus(Status.FAILED);
+            runNext(executor);
+            assertTrue(inFlight.isEmpty());
+            assertTrue(executor.getQueue().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test public void testInFlightStatuses() throws Exception {
+        TeiidOpenShiftClient client = createClient(new DvConfigurationProperties());
+        ScheduledThreadPoolExecutor executor = getWorkExecutor(client);
+        try {
+            BuildStatus x = new BuildStatus("dv-x");
+            x.setDataVirtualizationName("x");
+            x.setStatus(Status.DELETE_SUBMITTED);
+            x.setStatusMessage("delete submitted");
+            x.addRoute(new RouteStatus("odata", ProtocolType.ODATA));
+            ReflectionTestUtils.invokeMethod(client, "monitor", x);
+            BuildStatus y = new BuildStatus("dv-y");
+            y.setDataVirtualizationName("y");
+            y.setStatus(Status.DELETE_SUBMITTED);
+            ReflectionTestUtils.invokeMethod(client, "monitor", y);
+
+            Map<String, BuildStatus> snapshot = client.getInFlightStatuses();
+            assertEquals(Arrays.asList("x", "y"), new ArrayList<>(snapshot.keySet()));
+            BuildStatus copy = snapshot.get("x");
+            assertNotSame(x, copy);
+            assertEquals("dv-x", copy.getOpenShiftName());
+            assertEquals(Status.DELETE_SUBMITTED, copy.getStatus());
+            assertEquals("delete submitted", copy.getStatusMessage());
+
+            //the snapshot is not affected by later changes
+            x.addRoute(new RouteStatus("jdbc", ProtocolType.JDBC));
+            assertEquals(1, copy.getRoutes().size());
+            assertEquals(2, x.getRoutes().size());
+            x.setStatus(Status.FAILED);
+            runNext(executor);
+            assertEquals(Status.DELETE_SUBMITTED, copy.getStatus());
+            assertEquals(Collections.singleton("y"), client.getInFlightStatuses().keySet());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 }
@@ -20,6 +20,7 @@ package io.syndesis.dv.openshift;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
 import java.io.File;
 import java.io.InputStream;
@@ -29,8 +30,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-import org.jboss.shrinkwrap.api.GenericArchive;
-import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.junit.Before;
 import org.junit.Test;
 import io.syndesis.dv.datasources.DefaultSyndesisDataSource;
@@ -43,6 +44,7 @@ import io.syndesis.dv.server.AuthHandlingFilter.OAuthCredentials;
 
 import org.mockito.Mockito;
 import org.teiid.adminapi.Model;
+import org.teiid.adminapi.impl.ModelMetaData;
 import org.teiid.adminapi.impl.VDBMetaData;
 import org.teiid.adminapi.impl.VDBMetadataParser;
 import org.teiid.core.util.ObjectConverterUtil;
@@ -52,6 +54,8 @@ import io.syndesis.dv.KException;
 
 public class TestVDBPublisher {
 
+    private static final Log LOGGER = LogFactory.getLog(TestVDBPublisher.class);
+
     private VDBMetaData vdb;
 
     @Before
@@ -71,7 +75,7 @@ public class TestVDBPublisher {
         Map<String, String> repos = new HashMap<String, String>();
         repos.put("rh-ga", "https://maven.repository.redhat.com/ga/");
 
-        TeiidOpenShiftClient client = new TeiidOpenShiftClient(metadata, new EncryptionComponent("blah"), new DvConfigurationProperties(), null, repos) {
+        TeiidOpenShiftClient client = new TeiidOpenShiftClient(metadata, new EncryptionComponent("blah"), new DvConfigurationProperties(), null, repos, new SyndesisHttpClient()) {
             @Override
             public Set<DefaultSyndesisDataSource> getSyndesisSources() throws KException {
                 return sources;
@@ -150,10 +154,7 @@ public class TestVDBPublisher {
             if (!model.isSource()) {
                 continue;
             }
-            GenericArchive archive = ShrinkWrap.create(GenericArchive.class, "contents.tar");
-            generator.buildDataSourceBuilders(model, archive);
-            InputStream dsIs = archive.get("/src/main/java/io/integration/DataSourcesaccountsxyz.java").getAsset().openStream();
-            String ds = ObjectConverterUtil.convertToString(dsIs);
+            String ds = generator.buildDataSourceBuilders(model).get("src/main/java/io/integration/DataSourcesaccountsxyz.java");
             assertEquals(ObjectConverterUtil.convertFileToString(new File("src/test/resources/generated-ds.txt")), ds);
         }
     }
@@ -189,4 +190,64 @@ public class TestVDBPublisher {
         assertThat(variables, hasItem(new EnvVar("JAVA_OPTIONS", javaOptions, null)));
     }
 
+    private static VDBMetaData manySources(TeiidOpenShiftClient generator, int count) {
+        String[] translators = {"postgresql", "mongodb", "salesforce", "mysql5"};
+        VDBMetaData manySources = new VDBMetaData();
+        manySources.setName("many");
+        for (int i = 0; i < count; i++) {
+            ModelMetaData model = new ModelMetaData();
+            model.setName("model" + i);
+            model.addSourceMapping("source-" + i, translators[i % translators.length], null);
+            manySources.addModel(model);
+        }
+        generator.normalizeDataSourceNames(manySources);
+        return manySources;
+    }
+
+    private static Map<String, String> buildDataSourceBuilders(TeiidOpenShiftClient generator, VDBMetaData vdb) throws KException {
+        Map<String, String> builders = new HashMap<>();
+        for (Model model : vdb.getModels()) {
+            builders.putAll(generator.buildDataSourceBuilders(model));
+        }
+        return builders;
+    }
+
+    @Test
+    public void testGenerateManySources() throws Exception {
+        TeiidOpenShiftClient generator = testDataSetup();
+        VDBMetaData manySources = manySources(generator, 500);
+
+        String pom = generator.generatePomXml(manySources, true);
+        Map<String, String> builders = buildDataSourceBuilders(generator, manySources);
+
+        assertEquals(500, builders.size());
+        assertThat(builders.get("src/main/java/io/integration/DataSourcessource1.java"), containsString("MongoDBConnectionFactory source1("));
+        assertThat(builders.get("src/main/java/io/integration/DataSourcessource2.java"), containsString("SalesforceConnectionFactory source2("));
+        assertThat(pom, containsString("<artifactId>spring-odata</artifactId>"));
+        assertThat(pom, not(containsString("<!--vdb-dependencies-->")));
+    }
+
+    /**
+     * Benchmark of the generated publish contents for a vdb with many sources.
+     * Run with -Ddv.benchmark=true
+     */
+    @Test
+    public void benchmarkGenerateManySources() throws Exception {
+        assumeTrue(Boolean.getBoolean("dv.benchmark"));
+        TeiidOpenShiftClient generator = testDataSetup();
+        VDBMetaData manySources = manySources(generator, 500);
+
+        int iterations = 20;
+        long start = 0;
+        for (int i = 0; i < 2 * iterations; i++) {
+            if (i == iterations) {
+                start = System.nanoTime();
+            }
+            generator.generatePomXml(manySources, true);
+            buildDataSourceBuilders(generator, manySources);
+        }
+        long elapsed = System.nanoTime() - start;
+        LOGGER.info("Generated the publish contents for 500 sources in " + (elapsed / iterations / 1000) + " us");
+    }
+
 }
@@ -20,6 +20,9 @@ package io.syndesis.dv.repository;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,7 +31,9 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import io.syndesis.dv.model.EntityVersion;
 import io.syndesis.dv.model.SourceSchema;
+import io.syndesis.dv.model.SourceSchemaState;
 
 @SuppressWarnings("nls")
 @RunWith(SpringRunner.class)
@@ -85,6 +90,76 @@ public class SourceSchemaTest {
         entityManager.flush();
     }
 
+    @Test
+    public void testFindVersion() {
+        SourceSchema s = workspaceManagerImpl.createSchema("foo", "bar", "create ...");
+        entityManager.flush();
+
+        EntityVersion version = workspaceManagerImpl.findSchemaVersionBySourceId("foo");
+        assertEquals(s.getId(), version.getId());
+        assertEquals(s.getVersion(), version.getVersion());
+
+        s.setDdl("create foreign table ...");
+        entityManager.flush();
+        assertEquals(Long.valueOf(s.getVersion()), workspaceManagerImpl.findSchemaVersionBySourceId("foo").getVersion());
+        assertNotEquals(version.getVersion(), s.getVersion());
+
+        assertNull(workspaceManagerImpl.findSchemaVersionBySourceId("foo1"));
+    }
+
+    @Test
+    public void testFindState() {
+        SourceSchema s = workspaceManagerImpl.createSchema("foo", "bar", null);
+        workspaceManagerImpl.createSchema("foo1", "bar1", SourceSchema.FAILED_DDL + "bad");
+        entityManager.flush();
+
+        SourceSchemaState state = workspaceManagerImpl.findSchemaStateBySourceId("foo");
+        assertEquals("bar", state.getName());
+        assertNull(state.getState());
+
+        s.setDdl("create foreign table ...");
+        entityManager.flush();
+        assertEquals(SourceSchema.State.LOADED, workspaceManagerImpl.findSchemaStateBySourceId("foo").getState());
+
+        state = workspaceManagerImpl.findSchemaStateBySourceId("foo1");
+        assertEquals(SourceSchema.State.FAILED, state.getState());
+        assertEquals("bad", state.getError());
+
+        assertEquals(2, workspaceManagerImpl.findAllSchemaStates().size());
+        assertNull(workspaceManagerImpl.findSchemaStateBySourceId("foo2"));
+    }
+
+    @Test
+    public void testImportSettingsAndCatalog() {
+        SourceSchema s = workspaceManagerImpl.createSchema("foo", "bar", null);
+        assertNull(s.getImportSettings());
+        assertNull(s.getTableCatalog());
+
+        SourceSchema.ImportSettings settings = new SourceSchema.ImportSettings();
+        settings.getInclude().add("public\\.orders.*");
+        settings.setReferencedOnly(true);
+        s.setImportSettings(settings);
+        s.setTableCatalog(Arrays.asList("public.orders", "public.customers"));
+        entityManager.flush();
+        entityManager.clear();
+
+        SourceSchema found = workspaceManagerImpl.findSchemaBySourceId("foo");
+        assertEquals(settings, found.getImportSettings());
+        assertEquals(Arrays.asList("public.orders", "public.customers"), found.getTableCatalog());
+
+        found.setTableCatalog(Collections.emptyList());
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(Collections.emptyList(), workspaceManagerImpl.findSchemaBySourceId("foo").getTableCatalog());
+
+        //the catalog is removed with the schema
+        workspaceManagerImpl.findSchemaBySourceId("foo").setTableCatalog(Arrays.asList("public.orders"));
+        entityManager.flush();
+        assertTrue(workspaceManagerImpl.deleteSchemaBySourceId("foo"));
+        entityManager.flush();
+        assertNull(workspaceManagerImpl.findSchemaBySourceId("foo"));
+    }
+
     @Test
     public void testAllNames() {
         workspaceManagerImpl.createSchema("foo", "bar", "create ...");
@@ -20,15 +20,23 @@ package io.syndesis.dv.repository;
 
 import static org.junit.Assert.*;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
+import org.flywaydb.core.api.migration.Context;
+import org.hibernate.Session;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import db.migration.V10__view_source_backfill;
 import io.syndesis.dv.model.DataVirtualization;
 import io.syndesis.dv.model.ViewDefinition;
 
@@ -68,6 +76,9 @@ public class ViewDefinitionTest {
 
         assertEquals(3, workspaceManagerImpl.findViewDefinitions(dv.getName()).size());
 
+        workspaceManagerImpl.createDataVirtualization("other");
+        assertEquals(Collections.singletonMap(dv.getName(), 3L), workspaceManagerImpl.findViewDefinitionCounts());
+
         assertEquals(Arrays.asList("x", "y", "x1"), workspaceManagerImpl.findViewDefinitionsNames(dv.getName()));
 
         //x matching ignore case
@@ -99,6 +110,50 @@ public class ViewDefinitionTest {
         assertEquals(Arrays.asList("x"), found.getSourcePaths());
     }
 
+    @Test
+    public void testSourceTables() {
+        DataVirtualization dv = workspaceManagerImpl.createDataVirtualization("name");
+
+        ViewDefinition v = workspaceManagerImpl.createViewDefiniton(dv.getName(), "existing");
+        v.addSourcePath("schema=pg/table=orders");
+        v.addSourcePath("schema=pg/table=customers");
+        v.addSourcePath("x");
+
+        entityManager.flush();
+
+        assertEquals(Arrays.asList("customers", "orders"), sorted(workspaceManagerImpl.findSourceTableNames("pg")));
+        assertEquals(Arrays.asList("name"), workspaceManagerImpl.findDataVirtualizationNamesBySource("pg", null));
+        assertEquals(Arrays.asList("name"), workspaceManagerImpl.findDataVirtualizationNamesBySource("pg", Arrays.asList("orders", "other")));
+        assertEquals(Collections.emptyList(), workspaceManagerImpl.findDataVirtualizationNamesBySource("pg", Arrays.asList("other")));
+        assertEquals(Collections.emptyList(), workspaceManagerImpl.findDataVirtualizationNamesBySource("mysql", null));
+
+        //updates are incremental
+        v.clearState();
+        v.addSourcePath("schema=pg/table=orders");
+        v.setUserDefined(true);
+        v.setComplete(true);
+
+        entityManager.flush();
+        entityManager.detach(v);
+
+        assertEquals(Arrays.asList("orders"), workspaceManagerImpl.findSourceTableNames("pg"));
+        assertEquals(Collections.emptyList(), workspaceManagerImpl.findDataVirtualizationNamesWithoutSourceTables());
+
+        v = workspaceManagerImpl.findViewDefinition(v.getId());
+        v.clearState();
+
+        entityManager.flush();
+
+        assertEquals(Collections.emptyList(), workspaceManagerImpl.findSourceTableNames("pg"));
+        assertEquals(Arrays.asList("name"), workspaceManagerImpl.findDataVirtualizationNamesWithoutSourceTables());
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> result = new ArrayList<>(values);
+        Collections.sort(result);
+        return result;
+    }
+
     @Test
     public void testSameName() throws Exception {
         workspaceManagerImpl.createDataVirtualization("name");
@@ -114,4 +169,30 @@ public class ViewDefinitionTest {
         entityManager.flush();
     }
 
+    @Test
+    public void testSourceTableBackfill() throws Exception {
+        DataVirtualization dv = workspaceManagerImpl.createDataVirtualization("name");
+        ViewDefinition v = workspaceManagerImpl.createViewDefiniton(dv.getName(), "existing");
+        entityManager.flush();
+
+        //as saved prior to the view_source table
+        entityManager.getEntityManager().createNativeQuery("update view_definition set state = "
+                + "'{\"sourcePaths\":[\"schema=pg/table=orders\",\"schema=pg/table=orders\",\"x\",\"schema=pg/table=customers\"]}'")
+                .executeUpdate();
+        entityManager.clear();
+
+        entityManager.getEntityManager().unwrap(Session.class).doWork(connection -> {
+            Context context = Mockito.mock(Context.class);
+            Mockito.when(context.getConnection()).thenReturn(connection);
+            try {
+                new V10__view_source_backfill().migrate(context);
+            } catch (Exception e) {
+                throw new SQLException(e);
+            }
+        });
+
+        assertEquals(Arrays.asList("customers", "orders"), sorted(workspaceManagerImpl.findSourceTableNames("pg")));
+        assertEquals(2, workspaceManagerImpl.findViewDefinition(v.getId()).getSourceTables().size());
+    }
+
 }
@@ -21,16 +21,21 @@ package io.syndesis.dv.server.endpoint;
 import static org.junit.Assert.*;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import io.syndesis.dv.datasources.DefaultSyndesisDataSource;
 import io.syndesis.dv.datasources.H2SQLDefinition;
 import io.syndesis.dv.metadata.internal.DefaultMetadataInstance;
 import io.syndesis.dv.model.DataVirtualization;
 import io.syndesis.dv.model.ViewDefinition;
+import io.syndesis.dv.openshift.BuildStatus;
+import io.syndesis.dv.openshift.TeiidOpenShiftClient;
 import io.syndesis.dv.repository.RepositoryConfiguration;
 import io.syndesis.dv.repository.RepositoryManagerImpl;
 import io.syndesis.dv.rest.JsonMarshaller;
@@ -68,6 +73,9 @@ public class DataVirtualizationServiceTest {
     @Autowired
     private DefaultMetadataInstance metadataInstance;
 
+    @Autowired
+    private TeiidOpenShiftClient openShiftClient;
+
     @Test public void testImport() throws Exception {
         ImportPayload payload = new ImportPayload();
         payload.setTables(Arrays.asList("tbl", "tbl2", "tbl3"));
@@ -170,6 +178,43 @@ public class DataVirtualizationServiceTest {
         assertNotNull(response);
     }
 
+    @Test public void testGetDataVirtualizations() throws Exception {
+        workspaceManagerImpl.createDataVirtualization("dv1");
+        workspaceManagerImpl.createDataVirtualization("dv2");
+        workspaceManagerImpl.createViewDefiniton("dv1", "v1");
+        workspaceManagerImpl.createViewDefiniton("dv1", "v2");
+        entityManager.flush();
+
+        BuildStatus status = new BuildStatus("dv1");
+        status.setStatus(BuildStatus.Status.RUNNING);
+        Mockito.when(openShiftClient.getVirtualizationStatuses(Mockito.any()))
+                .thenReturn(Collections.singletonMap("dv1", status));
+
+        List<RestDataVirtualization> result = dataVirtualizationService.getDataVirtualizations();
+        assertEquals(2, result.size());
+        for (RestDataVirtualization dv : result) {
+            if (dv.getName().equals("dv1")) {
+                assertFalse(dv.isEmpty());
+                assertEquals("RUNNING", dv.getPublishedState());
+            } else {
+                assertTrue(dv.isEmpty());
+                assertEquals("NOTFOUND", dv.getPublishedState());
+            }
+        }
+
+        //statuses should not be requested individually
+        Mockito.verify(openShiftClient, Mockito.never()).getVirtualizationStatus(Mockito.anyString());
+    }
+
+    @Test public void testGetPublishStatuses() throws Exception {
+        BuildStatus status = new BuildStatus("dv-dv1");
+        status.setStatus(BuildStatus.Status.BUILDING);
+        Mockito.when(openShiftClient.getInFlightStatuses())
+                .thenReturn(Collections.singletonMap("dv1", status));
+
+        assertEquals(Collections.singletonMap("dv1", status), dataVirtualizationService.getPublishStatuses());
+    }
+
     static DefaultSyndesisDataSource createH2DataSource(String name) {
         DefaultSyndesisDataSource sds = new DefaultSyndesisDataSource();
         sds.setDefinition(new H2SQLDefinition());
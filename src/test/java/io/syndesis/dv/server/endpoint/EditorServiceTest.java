@@ -21,12 +21,14 @@ package io.syndesis.dv.server.endpoint;
 import static org.junit.Assert.*;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import io.syndesis.dv.metadata.internal.DefaultMetadataInstance;
 import io.syndesis.dv.model.ViewDefinition;
+import io.syndesis.dv.model.ViewDefinition.SourceTable;
 import io.syndesis.dv.repository.RepositoryConfiguration;
 import io.syndesis.dv.repository.RepositoryManagerImpl;
 import io.syndesis.dv.server.endpoint.DataVirtualizationService;
@@ -121,6 +123,22 @@ public class EditorServiceTest {
         //the save does not determine the source paths
         assertEquals(Arrays.asList(), saved.getSourcePaths());
 
+        //paths sent by the client for a user defined view are not used
+        vd.setSourcePaths(Arrays.asList("schema=other/table=t"));
+        vd.setDdl("create view y as select * from v ");
+        saved = utilService.upsertViewEditorState(vd);
+        assertEquals(Arrays.asList(), saved.getSourcePaths());
+        assertTrue(saved.getSourceTables().isEmpty());
+
+        //only those determined by validation
+        saved = utilService.upsertViewEditorState(vd, Arrays.asList("schema=dummy/table=v"));
+        assertEquals(Arrays.asList("schema=dummy/table=v"), saved.getSourcePaths());
+        assertEquals(Collections.singleton(new SourceTable("dummy", "v")), saved.getSourceTables());
+
+        //which are kept while the ddl is unchanged
+        saved = utilService.upsertViewEditorState(vd);
+        assertEquals(Arrays.asList("schema=dummy/table=v"), saved.getSourcePaths());
+
         for (ViewListing vl : dvService.getViewList("x")) {
             assertTrue(vl.isValid());
         }
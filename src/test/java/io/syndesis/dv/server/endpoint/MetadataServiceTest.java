@@ -20,19 +20,42 @@ package io.syndesis.dv.server.endpoint;
 
 import static org.junit.Assert.*;
 
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
 import io.syndesis.dv.datasources.DefaultSyndesisDataSource;
+import io.syndesis.dv.metadata.MetadataInstance.ValidationResult;
 import io.syndesis.dv.metadata.TeiidVdb;
 import io.syndesis.dv.metadata.internal.DefaultMetadataInstance;
 import io.syndesis.dv.metadata.internal.TeiidDataSourceImpl;
+import io.syndesis.dv.model.DataVirtualization;
+import io.syndesis.dv.model.SourceSchema;
+import io.syndesis.dv.model.ViewDefinition;
 import io.syndesis.dv.repository.RepositoryConfiguration;
 import io.syndesis.dv.repository.RepositoryManagerImpl;
 import io.syndesis.dv.rest.JsonMarshaller;
 import io.syndesis.dv.server.endpoint.EditorService;
 import io.syndesis.dv.server.endpoint.MetadataService;
+import io.syndesis.dv.server.endpoint.MetadataService.SourceDeploymentMode;
 import io.syndesis.dv.server.endpoint.QueryAttribute;
 import io.syndesis.dv.server.endpoint.RestSchemaNode;
 
@@ -41,8 +64,16 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
+import org.teiid.adminapi.Model.Type;
+import org.teiid.adminapi.impl.ModelMetaData;
+import org.teiid.adminapi.impl.VDBImportMetadata;
 import org.teiid.adminapi.impl.VDBMetaData;
+import org.teiid.metadata.MetadataFactory;
+import org.teiid.metadata.Schema;
+import org.teiid.query.metadata.SystemMetadata;
+import org.teiid.query.parser.QueryParser;
 
 import io.syndesis.dv.KException;
 
@@ -61,6 +92,9 @@ public class MetadataServiceTest {
     @Autowired
     private DefaultMetadataInstance metadataInstance;
 
+    @Autowired
+    private ScheduledThreadPoolExecutor connectionExecutor;
+
     @Test
     public void testSourceVdbGeneration() throws Exception {
 //        Map<String, String> properties = new LinkedHashMap<String, String>();
@@ -213,4 +247,321 @@ public class MetadataServiceTest {
 
         metadataInstance.query(vdb.getName(), "select * from v", DefaultMetadataInstance.NO_OFFSET, DefaultMetadataInstance.NO_LIMIT);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPreviewDeploymentShared() throws Exception {
+        repositoryManagerImpl.createDataVirtualization("dv2");
+
+        CompletableFuture<TeiidVdb> future = metadataService.updatePreviewVdbAsync("dv2");
+        CompletableFuture<TeiidVdb> other = metadataService.updatePreviewVdbAsync("dv2");
+        //the same version should share the deployment
+        assertTrue(future == other || other.isDone());
+
+        TeiidVdb vdb = future.get(30, TimeUnit.SECONDS);
+        assertTrue(vdb.hasLoaded());
+        assertEquals(vdb.getName(), metadataService.updatePreviewVdb("dv2").getName());
+    }
+
+    @Test
+    public void testPreviewDeploymentTimeout() throws Exception {
+        repositoryManagerImpl.createDataVirtualization("dv3");
+
+        //simulate a deployment that does not complete in time, such as a vdb that fails to load
+        Object executor = ReflectionTestUtils.getField(metadataService, "previewExecutor");
+        ThreadPoolExecutor stalled = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        CountDownLatch release = new CountDownLatch(1);
+        stalled.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ReflectionTestUtils.setField(metadataService, "previewExecutor", stalled);
+
+        long timeout = (Long)ReflectionTestUtils.getField(metadataService, "previewDeployTimeoutMillis");
+        ReflectionTestUtils.setField(metadataService, "previewDeployTimeoutMillis", 100L);
+        try {
+            metadataService.updatePreviewVdb("dv3");
+            fail();
+        } catch (KException e) {
+            //timed out
+        } finally {
+            ReflectionTestUtils.setField(metadataService, "previewDeployTimeoutMillis", timeout);
+            ReflectionTestUtils.setField(metadataService, "previewExecutor", executor);
+            release.countDown();
+            stalled.shutdown();
+        }
+
+        //the next request deploys again
+        assertTrue(metadataService.updatePreviewVdb("dv3").hasLoaded());
+    }
+
+    @Test
+    public void testPreviewRefreshCollapsed() throws Exception {
+        //the executor is a mock, so clear any refresh left pending by other tests
+        ReflectionTestUtils.setField(metadataService, "previewRefreshScheduled", new AtomicBoolean());
+        long collapsed = metadataService.getPreviewRefreshesCollapsed();
+        metadataService.requestPreviewVdbRefresh();
+        metadataService.requestPreviewVdbRefresh();
+        metadataService.requestPreviewVdbRefresh();
+
+        ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(connectionExecutor, Mockito.times(1)).schedule(refresh.capture(), Mockito.anyLong(), Mockito.any(TimeUnit.class));
+        assertEquals(collapsed + 2, metadataService.getPreviewRefreshesCollapsed());
+
+        //once run, a new request should be scheduled
+        refresh.getValue().run();
+        metadataService.requestPreviewVdbRefresh();
+        Mockito.verify(connectionExecutor, Mockito.times(2)).schedule(Mockito.any(Runnable.class), Mockito.anyLong(), Mockito.any(TimeUnit.class));
+    }
+
+    @Test
+    public void testChangedSourcePaths() throws Exception {
+        Schema current = parseSchema("create foreign table tbl (col string); create foreign table tbl1 (col string);"
+                + "create foreign table tbl2 (col string);");
+        Schema loaded = parseSchema("create foreign table tbl (col string); create foreign table tbl1 (col integer);");
+
+        assertEquals(new HashSet<>(Arrays.asList("schema=s/table=tbl1", "schema=s/table=tbl2")),
+                MetadataService.getChangedSourcePaths("s", current, loaded));
+        assertEquals(Collections.emptySet(), MetadataService.getChangedSourcePaths("s", current, current));
+        assertNull(MetadataService.getChangedSourcePaths("s", null, loaded));
+
+        //an added table may be used by any view
+        Schema added = parseSchema("create foreign table tbl (col string); create foreign table tbl1 (col integer);"
+                + "create foreign table tbl3 (col string);");
+        assertNull(MetadataService.getChangedSourcePaths("s", current, added));
+    }
+
+    @Test
+    public void testViewAddedAfterSchemaRefresh() throws Exception {
+        String sourceVdbName = MetadataService.getWorkspaceSourceVdbName("refreshed");
+        metadataInstance.deploy(sourceVdb(sourceVdbName, "create view t1 as select 1 as col;"));
+        metadataService.refreshPreviewVdb(null);
+
+        repositoryManagerImpl.createDataVirtualization("dvh");
+        ViewDefinition view = repositoryManagerImpl.createViewDefiniton("dvh", "x");
+        view.setDdl("create view x as select * from refreshed.t1");
+        view.setComplete(true);
+        view.setParsable(true);
+        view.addSourcePath(MetadataService.getSourcePath("refreshed", "t1"));
+        repositoryManagerImpl.flush();
+        TeiidVdb vdb = metadataService.updatePreviewVdb("dvh");
+        assertTrue(vdb.getValidityErrors().toString(), vdb.getValidityErrors().isEmpty());
+
+        //the refresh adds a table
+        Schema current = metadataInstance.getVdb(sourceVdbName).getSchema("refreshed");
+        metadataInstance.deploy(sourceVdb(sourceVdbName, "create view t1 as select 1 as col; create view t2 as select 2 as col;"));
+        Set<String> changed = MetadataService.getChangedSourcePaths("refreshed", current,
+                metadataInstance.getVdb(sourceVdbName).getSchema("refreshed"));
+        metadataService.refreshPreviewVdb(changed);
+
+        //a new view validates against the added table
+        vdb = metadataService.updatePreviewVdb("dvh");
+        ValidationResult result = metadataService.validate(vdb, "create view y as select * from refreshed.t2");
+        assertFalse(result.getReport().toString(), result.getReport().hasItems());
+    }
+
+    private static VDBMetaData sourceVdb(String vdbName, String ddl) {
+        VDBMetaData vdb = new VDBMetaData();
+        vdb.setName(vdbName);
+        ModelMetaData m = new ModelMetaData();
+        m.setName("refreshed");
+        vdb.addModel(m);
+        m.setModelType(Type.VIRTUAL);
+        m.addSourceMetadata("DDL", ddl);
+        return vdb;
+    }
+
+    private static Schema parseSchema(String ddl) {
+        ModelMetaData model = new ModelMetaData();
+        model.setName("s");
+        MetadataFactory mf = new MetadataFactory("x", 1, SystemMetadata.getInstance().getRuntimeTypeMap(), model);
+        QueryParser.getQueryParser().parseDDL(mf, ddl);
+        return mf.getSchema();
+    }
+
+    @Test
+    public void testTargetedPreviewInvalidation() throws Exception {
+        metadataInstance.deploy(dummyPreviewVdb());
+
+        metadataInstance.deploy(servicePreviewVdb("dva", "create view x as select * from dummy.v"));
+        metadataInstance.deploy(servicePreviewVdb("dvb", "create view x as select * from dummy.v1"));
+
+        metadataService.refreshPreviewVdb(Collections.singleton(MetadataService.getSourcePath("dummy", "v")));
+
+        assertNull(metadataInstance.getVdb(DataVirtualization.getPreviewVdbName("dva")));
+        assertNotNull(metadataInstance.getVdb(DataVirtualization.getPreviewVdbName("dvb")));
+
+        //the recorded view source tables are used instead of the deployed metadata
+        repositoryManagerImpl.createDataVirtualization("dvc");
+        ViewDefinition view = repositoryManagerImpl.createViewDefiniton("dvc", "x");
+        view.addSourcePath(MetadataService.getSourcePath("dummy", "v1"));
+        repositoryManagerImpl.flush();
+
+        metadataInstance.deploy(dummyPreviewVdb());
+        metadataInstance.deploy(servicePreviewVdb("dvc", "create view x as select * from dummy.v"));
+
+        metadataService.refreshPreviewVdb(Collections.singleton(MetadataService.getSourcePath("dummy", "v")));
+        assertNotNull(metadataInstance.getVdb(DataVirtualization.getPreviewVdbName("dvc")));
+
+        metadataService.refreshPreviewVdb(Collections.singleton(MetadataService.getSourcePath("dummy", "v1")));
+        assertNull(metadataInstance.getVdb(DataVirtualization.getPreviewVdbName("dvc")));
+
+        //all are invalidated if the paths are unknown
+        metadataService.refreshPreviewVdb(null);
+        assertNull(metadataInstance.getVdb(DataVirtualization.getPreviewVdbName("dvb")));
+    }
+
+    @Test
+    public void testValidationCached() throws Exception {
+        metadataService.refreshPreviewVdb(null);
+        metadataInstance.deploy(servicePreviewVdb("dvc", "create view x as select 1 as col"));
+        TeiidVdb vdb = metadataInstance.getVdb(DataVirtualization.getPreviewVdbName("dvc"));
+
+        String ddl = "create view y as select * from x";
+        ValidationResult result = metadataService.validate(vdb, ddl);
+        assertFalse(result.getReport().hasItems());
+        assertSame(result, metadataService.validate(vdb, ddl));
+        assertNotSame(result, metadataService.validate(vdb, ddl + " "));
+
+        //a redeployment invalidates
+        metadataInstance.deploy(servicePreviewVdb("dvc", "create view x as select 1 as col"));
+        vdb = metadataInstance.getVdb(DataVirtualization.getPreviewVdbName("dvc"));
+        assertNotSame(result, metadataService.validate(vdb, ddl));
+    }
+
+    @Test
+    public void testSourcePreviewInvalidation() throws Exception {
+        metadataInstance.deploy(dummyPreviewVdb());
+
+        metadataInstance.deploy(servicePreviewVdb("dvd", "create view x as select * from dummy.v"));
+        metadataInstance.deploy(servicePreviewVdb("dve", "create view x as select * from other.o"));
+
+        repositoryManagerImpl.createDataVirtualization("dvf");
+        ViewDefinition view = repositoryManagerImpl.createViewDefiniton("dvf", "x");
+        view.addSourcePath(MetadataService.getSourcePath("dummy", "v1"));
+        repositoryManagerImpl.flush();
+        metadataInstance.deploy(servicePreviewVdb("dvf", "create view x as select * from other.o"));
+
+        //any table of the source may have changed
+        metadataService.refreshPreviewVdb(Collections.singleton(MetadataService.getSourcePath("dummy")));
+
+        assertNull(metadataInstance.getVdb(DataVirtualization.getPreviewVdbName("dvd")));
+        assertNotNull(metadataInstance.getVdb(DataVirtualization.getPreviewVdbName("dve")));
+        assertNull(metadataInstance.getVdb(DataVirtualization.getPreviewVdbName("dvf")));
+    }
+
+    @Test
+    public void testSourceAddedInvalidatesPreviews() throws Exception {
+        //the executor is a mock, so clear any refresh left pending by other tests
+        ReflectionTestUtils.setField(metadataService, "previewRefreshScheduled", new AtomicBoolean());
+        metadataInstance.deploy(dummyPreviewVdb());
+        metadataInstance.deploy(servicePreviewVdb("dvg", "create view x as select * from other.o"));
+
+        DefaultSyndesisDataSource sds = DataVirtualizationServiceTest.createH2DataSource("source5");
+        sds.setId("addedid");
+        metadataInstance.registerDataSource(sds);
+        repositoryManagerImpl.createSchema("addedid", "source5", "create foreign table tbl (col string);");
+
+        metadataService.deploySourceVdb("source5", SourceDeploymentMode.REUSE_DDL);
+
+        ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(connectionExecutor, Mockito.atLeastOnce()).schedule(refresh.capture(), Mockito.anyLong(), Mockito.any(TimeUnit.class));
+        refresh.getValue().run();
+
+        //the new source is not yet visible to any existing preview
+        assertNull(metadataInstance.getVdb(DataVirtualization.getPreviewVdbName("dvg")));
+    }
+
+    private static VDBMetaData dummyPreviewVdb() {
+        VDBMetaData preview = new VDBMetaData();
+        preview.setName(EditorService.PREVIEW_VDB);
+        ModelMetaData m = new ModelMetaData();
+        m.setName("dummy");
+        preview.addModel(m);
+        m.setModelType(Type.VIRTUAL);
+        m.addSourceMetadata("DDL", "create view v as select 1 as col; create view v1 as select 1 as col;");
+        ModelMetaData other = new ModelMetaData();
+        other.setName("other");
+        preview.addModel(other);
+        other.setModelType(Type.VIRTUAL);
+        other.addSourceMetadata("DDL", "create view o as select 1 as col;");
+        return preview;
+    }
+
+    private static VDBMetaData servicePreviewVdb(String dvName, String ddl) {
+        VDBMetaData vdb = new VDBMetaData();
+        vdb.setName(DataVirtualization.getPreviewVdbName(dvName));
+        ModelMetaData m = new ModelMetaData();
+        m.setName(dvName);
+        vdb.addModel(m);
+        m.setModelType(Type.VIRTUAL);
+        m.addSourceMetadata("DDL", ddl);
+        VDBImportMetadata vdbImport = new VDBImportMetadata();
+        vdbImport.setVersion(DefaultMetadataInstance.DEFAULT_VDB_VERSION);
+        vdbImport.setName(EditorService.PREVIEW_VDB);
+        vdb.getVDBImports().add(vdbImport);
+        return vdb;
+    }
+
+    @Test
+    public void testExcludeTables() throws Exception {
+        SourceSchema.ImportSettings settings = new SourceSchema.ImportSettings();
+        assertNull(MetadataService.getExcludeTables(settings, Collections.emptySet()));
+
+        settings.getExclude().add("public\\.tmp_.*");
+        Pattern exclude = Pattern.compile(MetadataService.getExcludeTables(settings, Collections.emptySet()));
+        assertTrue(exclude.matcher("public.tmp_1").matches());
+        assertFalse(exclude.matcher("public.orders").matches());
+
+        settings.getInclude().add("public\\.order.*");
+        exclude = Pattern.compile(MetadataService.getExcludeTables(settings, Collections.emptySet()));
+        assertFalse(exclude.matcher("public.orders").matches());
+        assertTrue(exclude.matcher("public.customers").matches());
+        assertTrue(exclude.matcher("public.tmp_1").matches());
+
+        //referenced tables are also kept
+        settings.setReferencedOnly(true);
+        exclude = Pattern.compile(MetadataService.getExcludeTables(settings, Arrays.asList("public.customers", "public.a$b")));
+        assertFalse(exclude.matcher("public.orders").matches());
+        assertFalse(exclude.matcher("public.customers").matches());
+        assertFalse(exclude.matcher("public.a$b").matches());
+        assertTrue(exclude.matcher("public.customers2").matches());
+
+        //nothing is included or referenced
+        settings.getInclude().clear();
+        exclude = Pattern.compile(MetadataService.getExcludeTables(settings, Collections.emptySet()));
+        assertTrue(exclude.matcher("public.orders").matches());
+
+        settings.getExclude().add("(");
+        try {
+            MetadataService.getExcludeTables(settings, Collections.emptySet());
+            fail();
+        } catch (PatternSyntaxException e) {
+            //expected
+        }
+
+        assertEquals("public.customer", MetadataService.getQualifiedName("schema=public/table=customer"));
+        assertEquals("customer", MetadataService.getQualifiedName("catalog=db/table=customer"));
+    }
+
+    @Test
+    public void testTableCatalog() throws Exception {
+        String url = "jdbc:h2:mem:catalog;DB_CLOSE_DELAY=-1";
+        try (Connection c = DriverManager.getConnection(url, "sa", "sa");
+                Statement s = c.createStatement()) {
+            s.execute("create table orders (id integer)");
+            s.execute("create view orders_view as select * from orders");
+        }
+        DefaultSyndesisDataSource sds = DataVirtualizationServiceTest.createH2DataSource("source4");
+        sds.setId("catalogid");
+        sds.getProperties().put("url", url);
+        metadataInstance.registerDataSource(sds);
+        repositoryManagerImpl.createSchema("catalogid", "source4", null);
+
+        List<String> catalog = metadataService.getTableCatalog("source4", false);
+        assertEquals(Arrays.asList("PUBLIC.ORDERS", "PUBLIC.ORDERS_VIEW"), catalog);
+        assertEquals(catalog, repositoryManagerImpl.findSchemaBySourceId("catalogid").getTableCatalog());
+    }
+}
@@ -19,13 +19,24 @@ package io.syndesis.dv.server.endpoint;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
+import java.sql.Timestamp;
+
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import io.syndesis.dv.metadata.query.QSColumn;
+import io.syndesis.dv.metadata.query.QSColumnarWriter;
 import io.syndesis.dv.metadata.query.QSResult;
+import io.syndesis.dv.metadata.query.QSResultWriter;
 import io.syndesis.dv.metadata.query.QSRow;
 import io.syndesis.dv.rest.JsonMarshaller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import io.syndesis.dv.StringConstants;
 
 @SuppressWarnings("nls")
@@ -112,4 +123,165 @@ public class QueryResultSerializerTest implements StringConstants {
         assertEquals(JSON, json);
     }
 
+    @Test
+    public void shouldStreamResult() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        QSResultWriter writer = new QSResultWriter(baos, new ObjectMapper());
+        for (QSColumn column : queryResult.getColumns()) {
+            writer.addColumn(column);
+        }
+        for (QSRow row : queryResult.getRows()) {
+            writer.addRow(row);
+        }
+        writer.finish();
+
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(mapper.readTree(JSON), mapper.readTree(baos.toByteArray()));
+    }
+
+    @Test
+    public void shouldStreamEmptyResult() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        QSResultWriter writer = new QSResultWriter(baos, new ObjectMapper());
+        writer.addColumn(new QSColumn("integer", "x", "x"));
+        writer.finish();
+
+        assertEquals("{\"columns\":[{\"type\":\"integer\",\"name\":\"x\",\"label\":\"x\"}],\"rows\":[]}",
+                new String(baos.toByteArray(), "UTF-8"));
+    }
+
+    @Test
+    public void shouldStreamDatesAsStrings() throws Exception {
+        //the same configuration as the responses
+        ObjectMapper[] mapper = new ObjectMapper[1];
+        new ApplicationContextRunner().withConfiguration(AutoConfigurations.of(JacksonAutoConfiguration.class))
+            .run(context -> mapper[0] = context.getBean(ObjectMapper.class));
+
+        QSResult result = new QSResult();
+        result.addColumn(new QSColumn("timestamp", "x", "x"));
+        QSRow row = new QSRow();
+        row.add(Timestamp.valueOf("2019-01-02 03:04:05.6"));
+        result.addRow(row);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        QSResultWriter writer = new QSResultWriter(baos, mapper[0]);
+        writer.addColumn(result.getColumns().get(0));
+        writer.addRow(row);
+        writer.finish();
+
+        assertEquals(mapper[0].writeValueAsString(result), new String(baos.toByteArray(), "UTF-8"));
+        assertTrue(mapper[0].readTree(baos.toByteArray()).get("rows").get(0).get("row").get(0).isTextual());
+
+        //the columnar form uses the same mapper
+        baos = new ByteArrayOutputStream();
+        QSColumnarWriter columnar = new QSColumnarWriter(baos, mapper[0]);
+        columnar.addColumn(result.getColumns().get(0));
+        columnar.addRow(row);
+        columnar.finish();
+
+        JsonNode value = mapper[0].readTree(baos.toByteArray()).get("chunks").get(0).get("values").get(0).get(0);
+        assertEquals(mapper[0].valueToTree(row.getRow().get(0)), value);
+        assertTrue(value.isTextual());
+    }
+
+    @Test
+    public void shouldStreamRowValues() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        QSResultWriter writer = new QSResultWriter(baos, new ObjectMapper());
+        for (QSColumn column : queryResult.getColumns()) {
+            writer.addColumn(column);
+        }
+        for (Object[] row : rowsData) {
+            writer.addRow(row);
+        }
+        writer.addRow(new Object[] {6, null, null});
+        writer.finish();
+
+        ObjectMapper mapper = new ObjectMapper();
+        QSRow row = new QSRow();
+        row.add(6);
+        row.add(null);
+        row.add(null);
+        queryResult.addRow(row);
+        assertEquals(mapper.readTree(mapper.writeValueAsString(queryResult)), mapper.readTree(baos.toByteArray()));
+    }
+
+    @Test
+    public void shouldWriteColumnarResult() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        QSColumnarWriter writer = new QSColumnarWriter(baos, new ObjectMapper());
+        writer.addColumn(new QSColumn("integer", "x", "x"));
+        writer.addColumn(new QSColumn("boolean", "y", "y"));
+        writer.addColumn(new QSColumn("string", "z", "z"));
+        writer.addRow(new Object[] {1, true, "a"});
+        writer.addRow(new Object[] {null, false, null});
+        for (int i = 0; i < 100; i++) {
+            writer.addRow(new Object[] {i, null, "b"});
+        }
+        writer.finish();
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode node = mapper.readTree(baos.toByteArray());
+        assertEquals(3, node.get("columns").size());
+        assertEquals(102, node.get("rowCount").asInt());
+        assertEquals(1, node.get("chunks").size());
+        JsonNode chunk = node.get("chunks").get(0);
+        assertEquals(102, chunk.get("rowCount").asInt());
+        JsonNode values = chunk.get("values");
+        assertEquals(102, values.get(0).size());
+        assertTrue(values.get(0).toString().startsWith("[1,null,0,1,"));
+        assertTrue(values.get(1).toString().startsWith("[true,false,null,"));
+        assertEquals("b", values.get(2).get(101).asText());
+        assertTrue(values.get(2).get(1).isNull());
+    }
+
+    @Test
+    public void shouldWriteColumnarChunks() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        QSColumnarWriter writer = new QSColumnarWriter(baos, new ObjectMapper(), 10);
+        writer.addColumn(new QSColumn("long", "x", "x"));
+        writer.addColumn(new QSColumn("string", "y", "y"));
+        for (int i = 0; i < 25; i++) {
+            writer.addRow(new Object[] {i % 2 == 0 ? null : (long)i, i % 3 == 0 ? null : String.valueOf(i)});
+        }
+        //full chunks are written as rows are added
+        assertTrue(baos.size() > 0);
+        writer.finish();
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode node = mapper.readTree(baos.toByteArray());
+        assertEquals(25, node.get("rowCount").asInt());
+        JsonNode chunks = node.get("chunks");
+        assertEquals(3, chunks.size());
+        int row = 0;
+        for (JsonNode chunk : chunks) {
+            int count = chunk.get("rowCount").asInt();
+            assertEquals(row < 20 ? 10 : 5, count);
+            for (int i = 0; i < count; i++, row++) {
+                JsonNode x = chunk.get("values").get(0).get(i);
+                JsonNode y = chunk.get("values").get(1).get(i);
+                assertEquals(row % 2 == 0, x.isNull());
+                assertEquals(row % 3 == 0, y.isNull());
+                if (!x.isNull()) {
+                    assertEquals(row, x.asLong());
+                }
+                if (!y.isNull()) {
+                    assertEquals(String.valueOf(row), y.asText());
+                }
+            }
+        }
+        assertEquals(25, row);
+    }
+
+    @Test
+    public void shouldWriteEmptyColumnarResult() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        QSColumnarWriter writer = new QSColumnarWriter(baos, new ObjectMapper());
+        writer.addColumn(new QSColumn("integer", "x", "x"));
+        writer.finish();
+
+        assertEquals("{\"columns\":[{\"type\":\"integer\",\"name\":\"x\",\"label\":\"x\"}],\"chunks\":[],\"rowCount\":0}",
+                new String(baos.toByteArray(), "UTF-8"));
+    }
+
 }
@@ -25,6 +25,8 @@ import io.syndesis.dv.metadata.internal.TeiidServer;
 import io.syndesis.dv.openshift.TeiidOpenShiftClient;
 import io.syndesis.dv.server.endpoint.DataVirtualizationService;
 
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
@@ -33,6 +35,7 @@ import org.teiid.runtime.EmbeddedConfiguration;
 
 @ComponentScan(basePackageClasses = {DataVirtualizationService.class, DefaultMetadataInstance.class})
 @TestConfiguration
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
 public class ServiceTestConfiguration {
 
     @MockBean